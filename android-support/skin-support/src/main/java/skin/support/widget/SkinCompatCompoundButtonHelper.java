@@ -13,6 +13,8 @@ import skin.support.content.res.SkinCompatResources;
  */
 public class SkinCompatCompoundButtonHelper extends SkinCompatHelper {
     private final CompoundButton mView;
+    private static final int SOURCE_BUTTON = 0;
+    private static final int SOURCE_BUTTON_TINT = 1;
     private int mButtonResourceId = INVALID_ID;
     private int mButtonTintResId = INVALID_ID;
 
@@ -50,18 +52,25 @@ public class SkinCompatCompoundButtonHelper extends SkinCompatHelper {
 
     public void setButtonDrawable(int resId) {
         mButtonResourceId = resId;
+        resetSkinGeneration();
         applySkin();
     }
 
     @Override
     public void applySkin() {
+        if (!updateSkinGeneration(mView.getContext())) {
+            return;
+        }
         mButtonResourceId = SkinCompatHelper.checkResourceId(mButtonResourceId);
-        if (mButtonResourceId != INVALID_ID) {
+        if (mButtonResourceId != INVALID_ID
+                && isResSourceChanged(mView.getContext(), SOURCE_BUTTON, mButtonResourceId)) {
             mView.setButtonDrawable(SkinCompatResources.getInstance(mView.getContext()).getDrawable(mButtonResourceId));
         }
         mButtonTintResId = SkinCompatHelper.checkResourceId(mButtonTintResId);
-        if (mButtonTintResId != INVALID_ID) {
+        if (mButtonTintResId != INVALID_ID
+                && isResSourceChanged(mView.getContext(), SOURCE_BUTTON_TINT, mButtonTintResId)) {
             CompoundButtonCompat.setButtonTintList(mView, SkinCompatResources.getInstance(mView.getContext()).getColorStateList(mButtonTintResId));
         }
+        setResDependencies(mButtonResourceId, mButtonTintResId);
     }
 }
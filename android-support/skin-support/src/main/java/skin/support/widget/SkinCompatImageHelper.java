@@ -12,6 +12,7 @@ import skin.support.content.res.SkinCompatResources;
  * Created by ximsfei on 2017/1/12.
  */
 public class SkinCompatImageHelper extends SkinCompatHelper {
+    private static final int SOURCE_SRC = 0;
     private final ImageView mView;
     private int mSrcResId = INVALID_ID;
 
@@ -34,12 +35,17 @@ public class SkinCompatImageHelper extends SkinCompatHelper {
 
     public void setImageResource(int resId) {
         mSrcResId = resId;
+        resetSkinGeneration();
         applySkin();
     }
 
     public void applySkin() {
+        if (!updateSkinGeneration(mView.getContext())) {
+            return;
+        }
         mSrcResId = checkResourceId(mSrcResId);
-        if (mSrcResId == INVALID_ID) {
+        setResDependencies(mSrcResId);
+        if (mSrcResId == INVALID_ID || !isResSourceChanged(mView.getContext(), SOURCE_SRC, mSrcResId)) {
             return;
         }
         Drawable drawable = SkinCompatResources.getInstance(mView.getContext()).getDrawable(mSrcResId);
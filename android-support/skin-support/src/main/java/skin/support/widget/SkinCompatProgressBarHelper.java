@@ -27,12 +27,15 @@ import skin.support.content.res.SkinCompatResources;
 
 public class SkinCompatProgressBarHelper extends SkinCompatHelper {
 
+    private static final int SOURCE_INDETERMINATE_DRAWABLE = 0;
+    private static final int SOURCE_PROGRESS_DRAWABLE = 1;
+    private static final int SOURCE_INDETERMINATE_TINT = 2;
     private final ProgressBar mView;
 
     private Bitmap mSampleTile;
-    private int mIndeterminateDrawableResId = INVALID_ID;
-    private int mProgressDrawableResId = INVALID_ID;
-    private int mIndeterminateTintResId = INVALID_ID;
+    protected int mIndeterminateDrawableResId = INVALID_ID;
+    protected int mProgressDrawableResId = INVALID_ID;
+    protected int mIndeterminateTintResId = INVALID_ID;
 
     SkinCompatProgressBarHelper(ProgressBar view) {
         mView = view;
@@ -131,21 +134,32 @@ public class SkinCompatProgressBarHelper extends SkinCompatHelper {
 
     @Override
     public void applySkin() {
+        if (!updateSkinGeneration(mView.getContext())) {
+            return;
+        }
+        applyProgressBarResource();
+        setResDependencies(mIndeterminateDrawableResId, mProgressDrawableResId, mIndeterminateTintResId);
+    }
+
+    void applyProgressBarResource() {
         mIndeterminateDrawableResId = checkResourceId(mIndeterminateDrawableResId);
-        if (mIndeterminateDrawableResId != INVALID_ID) {
+        if (mIndeterminateDrawableResId != INVALID_ID && isResSourceChanged(
+                mView.getContext(), SOURCE_INDETERMINATE_DRAWABLE, mIndeterminateDrawableResId)) {
             Drawable drawable = SkinCompatResources.getInstance(mView.getContext()).getDrawable(mIndeterminateDrawableResId);
             drawable.setBounds(mView.getIndeterminateDrawable().getBounds());
             mView.setIndeterminateDrawable(tileifyIndeterminate(drawable));
         }
 
         mProgressDrawableResId = checkResourceId(mProgressDrawableResId);
-        if (mProgressDrawableResId != INVALID_ID) {
+        if (mProgressDrawableResId != INVALID_ID
+                && isResSourceChanged(mView.getContext(), SOURCE_PROGRESS_DRAWABLE, mProgressDrawableResId)) {
             Drawable drawable = SkinCompatResources.getInstance(mView.getContext()).getDrawable(mProgressDrawableResId);
             mView.setProgressDrawable(tileify(drawable, false));
         }
         if (Build.VERSION.SDK_INT > 21) {
             mIndeterminateTintResId = checkResourceId(mIndeterminateTintResId);
-            if (mIndeterminateTintResId != INVALID_ID) {
+            if (mIndeterminateTintResId != INVALID_ID
+                    && isResSourceChanged(mView.getContext(), SOURCE_INDETERMINATE_TINT, mIndeterminateTintResId)) {
                 mView.setIndeterminateTintList(SkinCompatResources.getInstance(mView.getContext()).getColorStateList(mIndeterminateTintResId));
             }
         }
@@ -14,6 +14,8 @@ public class SkinCompatSeekBarHelper extends SkinCompatProgressBarHelper {
             android.R.attr.thumb
     };
 
+    private static final int SOURCE_THUMB = 3;
+
     private final SeekBar mView;
 
     private int mThumbResId = INVALID_ID;
@@ -32,14 +34,27 @@ public class SkinCompatSeekBarHelper extends SkinCompatProgressBarHelper {
 
         a.recycle();
 
-        applySkin();
+        applyThumbResource();
+        // super中的applySkin()执行时尚未读取thumb.
+        setResDependencies(mIndeterminateDrawableResId, mProgressDrawableResId, mIndeterminateTintResId,
+                mThumbResId);
     }
 
     @Override
     public void applySkin() {
-        super.applySkin();
+        if (!updateSkinGeneration(mView.getContext())) {
+            return;
+        }
+        applyProgressBarResource();
+        applyThumbResource();
+        setResDependencies(mIndeterminateDrawableResId, mProgressDrawableResId, mIndeterminateTintResId,
+                mThumbResId);
+    }
+
+    private void applyThumbResource() {
         mThumbResId = checkResourceId(mThumbResId);
-        if (mThumbResId != INVALID_ID) {
+        if (mThumbResId != INVALID_ID
+                && isResSourceChanged(mView.getContext(), SOURCE_THUMB, mThumbResId)) {
             mView.setThumb(SkinCompatResources.getInstance(mView.getContext()).getDrawable(mThumbResId));
         }
     }
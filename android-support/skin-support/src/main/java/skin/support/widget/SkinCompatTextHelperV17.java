@@ -13,6 +13,8 @@ import skin.support.content.res.SkinCompatResources;
 
 @TargetApi(17)
 public class SkinCompatTextHelperV17 extends SkinCompatTextHelper {
+    private static final int SOURCE_DRAWABLE_START = 6;
+    private static final int SOURCE_DRAWABLE_END = 7;
     private int mDrawableStartResId = INVALID_ID;
     private int mDrawableEndResId = INVALID_ID;
 
@@ -40,11 +42,13 @@ public class SkinCompatTextHelperV17 extends SkinCompatTextHelper {
 
     public void onSetCompoundDrawablesRelativeWithIntrinsicBounds(
             @DrawableRes int start, @DrawableRes int top, @DrawableRes int end, @DrawableRes int bottom) {
+        resetCompoundDrawablesSources();
         mDrawableStartResId = start;
         mDrawableTopResId = top;
         mDrawableEndResId = end;
         mDrawableBottomResId = bottom;
         applyCompoundDrawablesRelativeResource();
+        updateResDependencies();
     }
 
     @Override
@@ -52,18 +56,23 @@ public class SkinCompatTextHelperV17 extends SkinCompatTextHelper {
         Drawable drawableLeft = null, drawableTop = null, drawableRight = null, drawableBottom = null,
                 drawableStart = null, drawableEnd = null;
         mDrawableLeftResId = checkResourceId(mDrawableLeftResId);
+        mDrawableTopResId = checkResourceId(mDrawableTopResId);
+        mDrawableRightResId = checkResourceId(mDrawableRightResId);
+        mDrawableBottomResId = checkResourceId(mDrawableBottomResId);
+        if (!(isCompoundDrawablesSourceChanged()
+                | isResSourceChanged(mView.getContext(), SOURCE_DRAWABLE_START, mDrawableStartResId)
+                | isResSourceChanged(mView.getContext(), SOURCE_DRAWABLE_END, mDrawableEndResId))) {
+            return;
+        }
         if (mDrawableLeftResId != INVALID_ID) {
             drawableLeft = SkinCompatResources.getInstance(mView.getContext()).getDrawable(mDrawableLeftResId);
         }
-        mDrawableTopResId = checkResourceId(mDrawableTopResId);
         if (mDrawableTopResId != INVALID_ID) {
             drawableTop = SkinCompatResources.getInstance(mView.getContext()).getDrawable(mDrawableTopResId);
         }
-        mDrawableRightResId = checkResourceId(mDrawableRightResId);
         if (mDrawableRightResId != INVALID_ID) {
             drawableRight = SkinCompatResources.getInstance(mView.getContext()).getDrawable(mDrawableRightResId);
         }
-        mDrawableBottomResId = checkResourceId(mDrawableBottomResId);
         if (mDrawableBottomResId != INVALID_ID) {
             drawableBottom = SkinCompatResources.getInstance(mView.getContext()).getDrawable(mDrawableBottomResId);
         }
@@ -88,4 +97,18 @@ public class SkinCompatTextHelperV17 extends SkinCompatTextHelper {
             mView.setCompoundDrawablesWithIntrinsicBounds(drawableStart, drawableTop, drawableEnd, drawableBottom);
         }
     }
+
+    @Override
+    protected void resetCompoundDrawablesSources() {
+        super.resetCompoundDrawablesSources();
+        resetResSource(SOURCE_DRAWABLE_START);
+        resetResSource(SOURCE_DRAWABLE_END);
+    }
+
+    @Override
+    protected void updateResDependencies() {
+        setResDependencies(mTextColorResId, mTextColorHintResId,
+                mDrawableLeftResId, mDrawableTopResId, mDrawableRightResId, mDrawableBottomResId,
+                mDrawableStartResId, mDrawableEndResId);
+    }
 }
@@ -0,0 +1,137 @@
+package skin.support.widget;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.AttributeSet;
+import android.view.ContextThemeWrapper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import skin.support.BuildConfig;
+import skin.support.R;
+import skin.support.SkinCompatManager;
+import skin.support.content.res.SkinCompatResources;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SkinCompatSeekBarHelperTest {
+    private static final int THUMB = R.drawable.abc_seekbar_thumb_material;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        SkinCompatManager.init(RuntimeEnvironment.application);
+        mContext = new ContextThemeWrapper(RuntimeEnvironment.application, R.style.Theme_AppCompat_Light);
+    }
+
+    @Test
+    public void thumbChangeReappliesThumb() {
+        RecordingSeekBar seekBar = inflate();
+
+        SkinCompatManager.getInstance(mContext).notifyResourcesChanged(THUMB);
+
+        assertEquals(1, seekBar.mThumbs.size());
+    }
+
+    @Test
+    public void drawableOverrideReplacesThumb() {
+        RecordingSeekBar seekBar = inflate();
+
+        SkinCompatManager.getInstance(mContext).setDrawableOverride(THUMB, new SkinCompatManager.SkinDrawableFactory() {
+            @Override
+            public Drawable createDrawable(Context context, int resId) {
+                return new ColorDrawable(Color.RED);
+            }
+        });
+
+        assertEquals(1, seekBar.mThumbs.size());
+        assertEquals(Color.RED, ((ColorDrawable) seekBar.mThumbs.get(0)).getColor());
+    }
+
+    @Test
+    public void changedSourceSetsThumbOnce() {
+        RecordingSeekBar seekBar = inflate();
+        List<SkinCompatResources.SkinEntry> entries =
+                Collections.<SkinCompatResources.SkinEntry>singletonList(new ThumbEntry(mContext));
+
+        getResources().publish(entries);
+        seekBar.applySkin();
+        assertEquals(1, seekBar.mThumbs.size());
+
+        // 皮肤版本号变化, 但thumb仍来自同一个皮肤包.
+        getResources().publish(entries);
+        seekBar.applySkin();
+        assertEquals(1, seekBar.mThumbs.size());
+    }
+
+    @Test
+    public void unchangedSourceSkipsSetter() {
+        RecordingSeekBar seekBar = inflate();
+
+        // 新皮肤中没有thumb, 仍使用应用自身的资源.
+        getResources().publish(Collections.<SkinCompatResources.SkinEntry>emptyList());
+        seekBar.applySkin();
+
+        assertEquals(0, seekBar.mThumbs.size());
+    }
+
+    private SkinCompatResources getResources() {
+        return SkinCompatResources.getInstance(mContext);
+    }
+
+    private RecordingSeekBar inflate() {
+        AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(android.R.attr.thumb, "@drawable/abc_seekbar_thumb_material")
+                .build();
+        return new RecordingSeekBar(mContext, attrs);
+    }
+
+    /**
+     * 只包含thumb的皮肤包, 直接使用应用自身的资源.
+     */
+    private static class ThumbEntry extends SkinCompatResources.SkinEntry {
+        ThumbEntry(Context context) {
+            super(context, context.getResources(), context.getPackageName(), "thumb", null);
+        }
+
+        @Override
+        public int getTargetResId(int resId) {
+            return resId == THUMB ? THUMB : 0;
+        }
+    }
+
+    /**
+     * 记录创建完成后设置的thumb.
+     */
+    private static class RecordingSeekBar extends SkinCompatSeekBar {
+        List<Drawable> mThumbs;
+
+        RecordingSeekBar(Context context, AttributeSet attrs) {
+            super(context, attrs);
+            mThumbs = new ArrayList<>();
+        }
+
+        @Override
+        public void setThumb(Drawable thumb) {
+            super.setThumb(thumb);
+            if (mThumbs != null) {
+                mThumbs.add(thumb);
+            }
+        }
+    }
+}
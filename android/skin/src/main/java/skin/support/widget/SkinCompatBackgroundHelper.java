@@ -13,6 +13,7 @@ import skin.support.content.res.SkinCompatResources;
  */
 
 public class SkinCompatBackgroundHelper extends SkinCompatHelper {
+    private static final int SOURCE_BACKGROUND = 0;
     private final View mView;
 
     private int mBackgroundResId = INVALID_ID;
@@ -37,12 +38,18 @@ public class SkinCompatBackgroundHelper extends SkinCompatHelper {
     public void onSetBackgroundResource(int resId) {
         mBackgroundResId = resId;
         // Update the default background tint
+        resetSkinGeneration();
         applySkin();
     }
 
     public void applySkin() {
+        if (!updateSkinGeneration(mView.getContext())) {
+            return;
+        }
         mBackgroundResId = checkResourceId(mBackgroundResId);
-        if (mBackgroundResId == INVALID_ID) {
+        setResDependencies(mBackgroundResId);
+        if (mBackgroundResId == INVALID_ID
+                || !isResSourceChanged(mView.getContext(), SOURCE_BACKGROUND, mBackgroundResId)) {
             return;
         }
         Drawable drawable = SkinCompatResources.getInstance(mView.getContext()).getDrawable(mBackgroundResId);
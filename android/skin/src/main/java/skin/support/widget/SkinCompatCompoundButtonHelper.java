@@ -12,6 +12,7 @@ import skin.support.content.res.SkinCompatResources;
  */
 public class SkinCompatCompoundButtonHelper extends SkinCompatHelper {
     private final CompoundButton mView;
+    private static final int SOURCE_BUTTON = 0;
     private int mButtonResourceId = INVALID_ID;
 
     public SkinCompatCompoundButtonHelper(CompoundButton view) {
@@ -34,13 +35,19 @@ public class SkinCompatCompoundButtonHelper extends SkinCompatHelper {
 
     public void setButtonDrawable(int resId) {
         mButtonResourceId = resId;
+        resetSkinGeneration();
         applySkin();
     }
 
     @Override
     public void applySkin() {
+        if (!updateSkinGeneration(mView.getContext())) {
+            return;
+        }
         mButtonResourceId = SkinCompatHelper.checkResourceId(mButtonResourceId);
-        if (mButtonResourceId != INVALID_ID) {
+        setResDependencies(mButtonResourceId);
+        if (mButtonResourceId != INVALID_ID
+                && isResSourceChanged(mView.getContext(), SOURCE_BUTTON, mButtonResourceId)) {
             mView.setButtonDrawable(SkinCompatResources.getInstance(mView.getContext()).getDrawable(mButtonResourceId));
         }
     }
@@ -32,6 +32,9 @@ public class SkinCompatProgressBarHelper extends SkinCompatHelper {
             android.R.attr.progressDrawable
     };
 
+    private static final int SOURCE_INDETERMINATE_DRAWABLE = 0;
+    private static final int SOURCE_PROGRESS_DRAWABLE = 1;
+    private static final int SOURCE_INDETERMINATE_TINT = 2;
     private final ProgressBar mView;
 
     private Bitmap mSampleTile;
@@ -136,24 +139,31 @@ public class SkinCompatProgressBarHelper extends SkinCompatHelper {
 
     @Override
     public void applySkin() {
+        if (!updateSkinGeneration(mView.getContext())) {
+            return;
+        }
         mIndeterminateDrawableResId = checkResourceId(mIndeterminateDrawableResId);
-        if (mIndeterminateDrawableResId != INVALID_ID) {
+        if (mIndeterminateDrawableResId != INVALID_ID && isResSourceChanged(
+                mView.getContext(), SOURCE_INDETERMINATE_DRAWABLE, mIndeterminateDrawableResId)) {
             Drawable drawable = SkinCompatResources.getInstance(mView.getContext()).getDrawable(mIndeterminateDrawableResId);
             drawable.setBounds(mView.getIndeterminateDrawable().getBounds());
             mView.setIndeterminateDrawable(tileifyIndeterminate(drawable));
         }
 
         mProgressDrawableResId = checkProgressDrawableResId(mProgressDrawableResId);
-        if (mProgressDrawableResId != INVALID_ID) {
+        if (mProgressDrawableResId != INVALID_ID
+                && isResSourceChanged(mView.getContext(), SOURCE_PROGRESS_DRAWABLE, mProgressDrawableResId)) {
             Drawable drawable = SkinCompatResources.getInstance(mView.getContext()).getDrawable(mProgressDrawableResId);
             mView.setProgressDrawable(tileify(drawable, false));
         }
         if (Build.VERSION.SDK_INT > 21) {
             mIndeterminateTintResId = checkResourceId(mIndeterminateTintResId);
-            if (mIndeterminateTintResId != INVALID_ID) {
+            if (mIndeterminateTintResId != INVALID_ID
+                    && isResSourceChanged(mView.getContext(), SOURCE_INDETERMINATE_TINT, mIndeterminateTintResId)) {
                 mView.setIndeterminateTintList(SkinCompatResources.getInstance(mView.getContext()).getColorStateList(mIndeterminateTintResId));
             }
         }
+        setResDependencies(mIndeterminateDrawableResId, mProgressDrawableResId, mIndeterminateTintResId);
     }
 
     private int checkProgressDrawableResId(int mProgressDrawableResId) {
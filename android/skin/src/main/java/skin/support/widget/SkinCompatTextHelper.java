@@ -28,8 +28,14 @@ public class SkinCompatTextHelper extends SkinCompatHelper {
 
     final TextView mView;
 
-    private int mTextColorResId = INVALID_ID;
-    private int mTextColorHintResId = INVALID_ID;
+    private static final int SOURCE_TEXT_COLOR = 0;
+    private static final int SOURCE_TEXT_COLOR_HINT = 1;
+    protected static final int SOURCE_DRAWABLE_LEFT = 2;
+    protected static final int SOURCE_DRAWABLE_TOP = 3;
+    protected static final int SOURCE_DRAWABLE_RIGHT = 4;
+    protected static final int SOURCE_DRAWABLE_BOTTOM = 5;
+    protected int mTextColorResId = INVALID_ID;
+    protected int mTextColorHintResId = INVALID_ID;
     protected int mDrawableBottomResId = INVALID_ID;
     protected int mDrawableLeftResId = INVALID_ID;
     protected int mDrawableRightResId = INVALID_ID;
@@ -86,6 +92,8 @@ public class SkinCompatTextHelper extends SkinCompatHelper {
     }
 
     public void onSetTextAppearance(Context context, int resId) {
+        resetResSource(SOURCE_TEXT_COLOR);
+        resetResSource(SOURCE_TEXT_COLOR_HINT);
         final TypedArray a = context.obtainStyledAttributes(resId, R.styleable.SkinTextAppearance);
         if (a.hasValue(R.styleable.SkinTextAppearance_android_textColor)) {
             mTextColorResId = a.getResourceId(R.styleable.SkinTextAppearance_android_textColor, INVALID_ID);
@@ -96,11 +104,13 @@ public class SkinCompatTextHelper extends SkinCompatHelper {
         a.recycle();
         applyTextColorResource();
         applyTextColorHintResource();
+        updateResDependencies();
     }
 
     private void applyTextColorHintResource() {
         mTextColorHintResId = checkResourceId(mTextColorHintResId);
-        if (mTextColorHintResId != INVALID_ID) {
+        if (mTextColorHintResId != INVALID_ID
+                && isResSourceChanged(mView.getContext(), SOURCE_TEXT_COLOR_HINT, mTextColorHintResId)) {
             ColorStateList color = SkinCompatResources.getInstance(mView.getContext()).getColorStateList(mTextColorHintResId);
             mView.setHintTextColor(color);
         }
@@ -108,7 +118,8 @@ public class SkinCompatTextHelper extends SkinCompatHelper {
 
     private void applyTextColorResource() {
         mTextColorResId = checkResourceId(mTextColorResId);
-        if (mTextColorResId != INVALID_ID) {
+        if (mTextColorResId != INVALID_ID
+                && isResSourceChanged(mView.getContext(), SOURCE_TEXT_COLOR, mTextColorResId)) {
             ColorStateList color = SkinCompatResources.getInstance(mView.getContext()).getColorStateList(mTextColorResId);
             mView.setTextColor(color);
         }
@@ -116,20 +127,24 @@ public class SkinCompatTextHelper extends SkinCompatHelper {
 
     public void onSetCompoundDrawablesRelativeWithIntrinsicBounds(
             @DrawableRes int start, @DrawableRes int top, @DrawableRes int end, @DrawableRes int bottom) {
+        resetCompoundDrawablesSources();
         mDrawableLeftResId = start;
         mDrawableTopResId = top;
         mDrawableRightResId = end;
         mDrawableBottomResId = bottom;
         applyCompoundDrawablesRelativeResource();
+        updateResDependencies();
     }
 
     public void onSetCompoundDrawablesWithIntrinsicBounds(
             @DrawableRes int left, @DrawableRes int top, @DrawableRes int right, @DrawableRes int bottom) {
+        resetCompoundDrawablesSources();
         mDrawableLeftResId = left;
         mDrawableTopResId = top;
         mDrawableRightResId = right;
         mDrawableBottomResId = bottom;
         applyCompoundDrawablesResource();
+        updateResDependencies();
     }
 
     protected void applyCompoundDrawablesRelativeResource() {
@@ -139,18 +154,21 @@ public class SkinCompatTextHelper extends SkinCompatHelper {
     protected void applyCompoundDrawablesResource() {
         Drawable drawableLeft = null, drawableTop = null, drawableRight = null, drawableBottom = null;
         mDrawableLeftResId = checkResourceId(mDrawableLeftResId);
+        mDrawableTopResId = checkResourceId(mDrawableTopResId);
+        mDrawableRightResId = checkResourceId(mDrawableRightResId);
+        mDrawableBottomResId = checkResourceId(mDrawableBottomResId);
+        if (!isCompoundDrawablesSourceChanged()) {
+            return;
+        }
         if (mDrawableLeftResId != INVALID_ID) {
             drawableLeft = SkinCompatResources.getInstance(mView.getContext()).getDrawable(mDrawableLeftResId);
         }
-        mDrawableTopResId = checkResourceId(mDrawableTopResId);
         if (mDrawableTopResId != INVALID_ID) {
             drawableTop = SkinCompatResources.getInstance(mView.getContext()).getDrawable(mDrawableTopResId);
         }
-        mDrawableRightResId = checkResourceId(mDrawableRightResId);
         if (mDrawableRightResId != INVALID_ID) {
             drawableRight = SkinCompatResources.getInstance(mView.getContext()).getDrawable(mDrawableRightResId);
         }
-        mDrawableBottomResId = checkResourceId(mDrawableBottomResId);
         if (mDrawableBottomResId != INVALID_ID) {
             drawableBottom = SkinCompatResources.getInstance(mView.getContext()).getDrawable(mDrawableBottomResId);
         }
@@ -167,8 +185,39 @@ public class SkinCompatTextHelper extends SkinCompatHelper {
     }
 
     public void applySkin() {
+        if (!updateSkinGeneration(mView.getContext())) {
+            return;
+        }
         applyCompoundDrawablesRelativeResource();
         applyTextColorResource();
         applyTextColorHintResource();
+        updateResDependencies();
+    }
+
+    /**
+     * 四个方向的Drawable一起设置, 任意一个来源变化都需要重新设置.
+     */
+    protected boolean isCompoundDrawablesSourceChanged() {
+        Context context = mView.getContext();
+        // 不使用短路运算, 记录所有方向的来源.
+        return isResSourceChanged(context, SOURCE_DRAWABLE_LEFT, mDrawableLeftResId)
+                | isResSourceChanged(context, SOURCE_DRAWABLE_TOP, mDrawableTopResId)
+                | isResSourceChanged(context, SOURCE_DRAWABLE_RIGHT, mDrawableRightResId)
+                | isResSourceChanged(context, SOURCE_DRAWABLE_BOTTOM, mDrawableBottomResId);
+    }
+
+    /**
+     * 外部setter同时替换了所有方向的Drawable.
+     */
+    protected void resetCompoundDrawablesSources() {
+        resetResSource(SOURCE_DRAWABLE_LEFT);
+        resetResSource(SOURCE_DRAWABLE_TOP);
+        resetResSource(SOURCE_DRAWABLE_RIGHT);
+        resetResSource(SOURCE_DRAWABLE_BOTTOM);
+    }
+
+    protected void updateResDependencies() {
+        setResDependencies(mTextColorResId, mTextColorHintResId,
+                mDrawableLeftResId, mDrawableTopResId, mDrawableRightResId, mDrawableBottomResId);
     }
 }
@@ -1,43 +1,111 @@
 package skin.support;
 
+import android.app.ActivityManager;
 import android.app.Application;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.res.AssetManager;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
 import android.content.res.Resources;
-import android.os.AsyncTask;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
 import android.support.annotation.Nullable;
 import android.text.TextUtils;
+import android.util.LruCache;
 
+import java.io.File;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import skin.support.app.SkinActivityLifecycle;
 import skin.support.app.SkinViewInflater;
 import skin.support.app.SkinLayoutInflater;
 import skin.support.content.res.SkinCompatResources;
+import skin.support.content.res.SkinConfig;
 import skin.support.load.SkinAssetsLoader;
 import skin.support.load.SkinBuildInLoader;
+import skin.support.observe.SkinIncrementalObserver;
 import skin.support.observe.SkinObservable;
+import skin.support.observe.SkinObserver;
+import skin.support.utils.SkinApkUtils;
+import skin.support.utils.SkinFileUtils;
 import skin.support.utils.SkinPreference;
+import skin.support.utils.SkinState;
+import skin.support.widget.SkinResDependencyIndex;
 
 public class SkinCompatManager extends SkinObservable {
     public static final int SKIN_LOADER_STRATEGY_ASSETS = 0;
     public static final int SKIN_LOADER_STRATEGY_BUILD_IN = 1;
+    public static final String SKIN_LOADER_CANCELLED = "皮肤包加载已取消";
     private static final String SKIN_SEPARATOR = "&";
     private static final Map<Context, SkinCompatManager> sInstanceMap = new HashMap<>();
-    private final Object mLock = new Object();
     private final Context mAppContext;
-    private boolean mLoading = false;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private static final int MAX_PARALLEL_LAYER_COUNT = 3;
+    private static final ThreadFactory sLoaderThreadFactory = new ThreadFactory() {
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    r.run();
+                }
+            }, "SkinLoader #" + mCount.incrementAndGet());
+        }
+    };
+    private final ExecutorService mLoadExecutor = Executors.newSingleThreadExecutor(sLoaderThreadFactory);
+    // 叠加多个皮肤包时, 用于并行加载各个皮肤包.
+    private final ThreadPoolExecutor mLayerExecutor = new ThreadPoolExecutor(
+            MAX_PARALLEL_LAYER_COUNT, MAX_PARALLEL_LAYER_COUNT, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), sLoaderThreadFactory);
+    // 每次请求加载皮肤包时递增, 加载任务的序号与之不同时说明已被新的请求取代.
+    private final AtomicInteger mLoadSequence = new AtomicInteger();
     private List<SkinLayoutInflater> mInflaters = new ArrayList<>();
     private List<SkinLayoutInflater> mHookInflaters = new ArrayList<>();
     private Map<Integer, SkinLoaderStrategy> mStrategyMap = new HashMap<>();
     private boolean mSkinAllActivityEnable = true;
     private boolean mSkinWindowBackgroundColorEnable = false;
+    private boolean mSkinResIdIndexEnable = false;
+    private boolean mSkinResFilterEnable = false;
+    private boolean mSkinResPrepareEnable = false;
+    // 预加载完成, 尚未生效的皮肤包, 按皮肤包名称, 加载策略及词缀配置索引.
+    private final LruCache<String, List<SkinCompatResources.SkinEntry>> mPreparedSkins;
+    // 正在预加载的皮肤包, 避免重复提交.
+    private final Set<String> mPrefetchingKeys = new HashSet<>();
+    // 同一皮肤包的拷贝及加载依次进行, 预加载与换肤不会同时写同一个文件.
+    private final Map<String, Object> mSkinLocks = new HashMap<>();
+    private volatile SkinLoadMetricsListener mMetricsListener;
+    // 当前观察者换肤时更新的View数, 只在主线程中访问.
+    private int mAppliedViewCount;
+    // 分帧换肤时, 正在统计的观察者及其累计耗时.
+    private SkinObserver mMeasuredObserver;
+    private long mMeasuredObserverNanos;
+    // 每帧用于换肤的时间, 为0时一次完成换肤.
+    private long mSkinApplyFrameBudgetNanos = 0;
 
     /**
      * 皮肤包加载监听.
@@ -61,6 +129,84 @@ public class SkinCompatManager extends SkinObservable {
         void onFailed(String errMsg);
     }
 
+    /**
+     * 皮肤包加载监听, 支持取消回调.
+     * 未实现该接口的监听在加载被取消时收到{@link SkinLoaderListener#onFailed(String)}, 错误信息为{@link #SKIN_LOADER_CANCELLED}.
+     */
+    public interface SkinLoaderCancelListener extends SkinLoaderListener {
+        /**
+         * 加载未生效前，被新的加载请求取代.
+         */
+        void onCancelled();
+    }
+
+    /**
+     * 皮肤包加载耗时监听, 用于统计换肤各阶段的耗时.
+     * 加载阶段在后台线程中回调, 偏好设置保存及通知观察者在主线程中回调.
+     */
+    public interface SkinLoadMetricsListener {
+        /**
+         * 从assets中拷贝皮肤包.
+         */
+        int PHASE_ASSET_COPY = 0;
+        /**
+         * 解析皮肤包包名.
+         */
+        int PHASE_PACKAGE_PARSE = 1;
+        /**
+         * 创建皮肤包{@link AssetManager}及{@link Resources}.
+         */
+        int PHASE_RESOURCES_CREATE = 2;
+        /**
+         * 建立资源过滤表及资源ID映射表.
+         */
+        int PHASE_INDEX_BUILD = 3;
+        /**
+         * 保存皮肤包偏好设置.
+         */
+        int PHASE_PREFERENCE_COMMIT = 4;
+        /**
+         * 通知所有观察者换肤.
+         */
+        int PHASE_NOTIFY = 5;
+        /**
+         * 在后台线程中预先解析View使用的资源.
+         */
+        int PHASE_RESOURCES_PREPARE = 6;
+
+        /**
+         * 某一阶段完成.
+         *
+         * @param phase         {@link #PHASE_ASSET_COPY} {@link #PHASE_PACKAGE_PARSE} {@link #PHASE_RESOURCES_CREATE}
+         *                      {@link #PHASE_INDEX_BUILD} {@link #PHASE_PREFERENCE_COMMIT} {@link #PHASE_NOTIFY}
+         *                      {@link #PHASE_RESOURCES_PREPARE}
+         * @param skinName      皮肤包名称, 不针对单个皮肤包的阶段为空.
+         * @param durationNanos 耗时, 单位纳秒.
+         */
+        void onPhaseFinished(int phase, String skinName, long durationNanos);
+
+        /**
+         * 单个观察者换肤完成.
+         *
+         * @param observer      观察者.
+         * @param durationNanos 耗时, 单位纳秒.
+         * @param viewCount     更新的View数.
+         */
+        void onObserverUpdated(SkinObserver observer, long durationNanos, int viewCount);
+    }
+
+    /**
+     * 运行时覆盖的Drawable.
+     */
+    public interface SkinDrawableFactory {
+        /**
+         * @param context {@link Context}
+         * @param resId   被覆盖的应用资源ID.
+         * @return 用于替换该资源的Drawable, 每次调用返回新的实例.
+         */
+        Drawable createDrawable(Context context, int resId);
+    }
+
     /**
      * 皮肤包加载策略.
      */
@@ -128,9 +274,49 @@ public class SkinCompatManager extends SkinObservable {
 
     private SkinCompatManager(Application application) {
         mAppContext = application;
+        mLayerExecutor.allowCoreThreadTimeOut(true);
+        mPreparedSkins = new LruCache<String, List<SkinCompatResources.SkinEntry>>(getPreparedSkinCapacity(application)) {
+            @Override
+            protected void entryRemoved(boolean evicted, String key,
+                                        List<SkinCompatResources.SkinEntry> oldValue,
+                                        List<SkinCompatResources.SkinEntry> newValue) {
+                // 被取出使用的皮肤包不释放.
+                if (evicted || newValue != null) {
+                    releaseSkinEntries(oldValue);
+                }
+            }
+        };
+        application.registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                if (level >= TRIM_MEMORY_RUNNING_LOW) {
+                    clearPreparedSkins();
+                }
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                clearPreparedSkins();
+            }
+        });
         initLoaderStrategy();
     }
 
+    private static int getPreparedSkinCapacity(Context context) {
+        ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryClass = am.getMemoryClass();
+        if (memoryClass <= 64) {
+            return 1;
+        } else if (memoryClass <= 128) {
+            return 2;
+        }
+        return 3;
+    }
+
     private void initLoaderStrategy() {
         mStrategyMap.put(SKIN_LOADER_STRATEGY_ASSETS, new SkinAssetsLoader());
         mStrategyMap.put(SKIN_LOADER_STRATEGY_BUILD_IN, new SkinBuildInLoader());
@@ -228,6 +414,266 @@ public class SkinCompatManager extends SkinObservable {
         return mSkinWindowBackgroundColorEnable;
     }
 
+    /**
+     * 设置是否在加载皮肤包时预先建立资源ID映射表, 换肤时不再在主线程中查找皮肤包资源.
+     *
+     * @param enable true: 打开; false: 关闭.
+     * @return
+     */
+    public SkinCompatManager setSkinResIdIndexEnable(boolean enable) {
+        mSkinResIdIndexEnable = enable;
+        return this;
+    }
+
+    public boolean isSkinResIdIndexEnable() {
+        return mSkinResIdIndexEnable;
+    }
+
+    /**
+     * 设置是否在加载皮肤包时标记皮肤包中存在的资源, 皮肤包中不存在的资源不再查找.
+     *
+     * @param enable true: 打开; false: 关闭.
+     * @return
+     */
+    public SkinCompatManager setSkinResFilterEnable(boolean enable) {
+        mSkinResFilterEnable = enable;
+        return this;
+    }
+
+    public boolean isSkinResFilterEnable() {
+        return mSkinResFilterEnable;
+    }
+
+    /**
+     * 设置是否在加载皮肤包后, 在后台线程中预先解析并解码当前View使用的颜色及Drawable, 主线程换肤时只调用setter.
+     * <p>
+     * 预先解析期间新旧两个皮肤的Drawable缓存同时存在, 参考{@link #setDrawableCacheSize(int)}.
+     *
+     * @param enable true: 打开; false: 关闭.
+     * @return
+     */
+    public SkinCompatManager setSkinResPrepareEnable(boolean enable) {
+        mSkinResPrepareEnable = enable;
+        return this;
+    }
+
+    public boolean isSkinResPrepareEnable() {
+        return mSkinResPrepareEnable;
+    }
+
+    /**
+     * 设置皮肤包Drawable缓存大小, 换肤时及系统内存不足时清空.
+     *
+     * @param maxBytes 缓存的最大字节数, 小于等于0时不缓存.
+     * @return
+     */
+    public SkinCompatManager setDrawableCacheSize(int maxBytes) {
+        SkinCompatResources.getInstance(mAppContext).setDrawableCacheSize(maxBytes);
+        return this;
+    }
+
+    /**
+     * 设置分帧换肤, 每帧只用指定的时间换肤, 先处理最近显示的Activity, 全部完成后回调{@link SkinLoaderListener#onSuccess()}.
+     *
+     * @param budgetMillis 每帧用于换肤的时间, 单位毫秒, 为0时在一次消息中完成换肤.
+     * @return
+     */
+    public SkinCompatManager setSkinApplyFrameBudget(long budgetMillis) {
+        mSkinApplyFrameBudgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(budgetMillis, 0));
+        return this;
+    }
+
+    public long getSkinApplyFrameBudget() {
+        return TimeUnit.NANOSECONDS.toMillis(mSkinApplyFrameBudgetNanos);
+    }
+
+    /**
+     * 设置皮肤包加载耗时监听, 未设置时不统计耗时.
+     *
+     * @param listener 耗时监听, 为null时关闭统计.
+     * @return
+     */
+    public SkinCompatManager setSkinLoadMetricsListener(SkinLoadMetricsListener listener) {
+        mMetricsListener = listener;
+        return this;
+    }
+
+    /**
+     * 开始统计某一阶段的耗时, 与{@link #reportLoadPhase(int, String, long)}配合使用.
+     *
+     * @return 开始时间, 未设置耗时监听时返回0.
+     */
+    public long startLoadPhase() {
+        return mMetricsListener == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * 结束统计某一阶段的耗时.
+     *
+     * @param phase      {@link SkinLoadMetricsListener#PHASE_ASSET_COPY}等.
+     * @param skinName   皮肤包名称.
+     * @param startNanos {@link #startLoadPhase()}的返回值.
+     */
+    public void reportLoadPhase(int phase, String skinName, long startNanos) {
+        SkinLoadMetricsListener listener = mMetricsListener;
+        if (listener != null && startNanos != 0) {
+            listener.onPhaseFinished(phase, skinName, System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * 观察者换肤时记录更新的View数, 在主线程中调用.
+     *
+     * @param count 更新的View数.
+     */
+    public void addAppliedViewCount(int count) {
+        mAppliedViewCount += count;
+    }
+
+    @Override
+    protected void updateObserver(SkinObserver observer, Object arg) {
+        SkinLoadMetricsListener listener = mMetricsListener;
+        if (listener == null) {
+            super.updateObserver(observer, arg);
+            return;
+        }
+        mAppliedViewCount = 0;
+        long start = System.nanoTime();
+        super.updateObserver(observer, arg);
+        listener.onObserverUpdated(observer, System.nanoTime() - start, mAppliedViewCount);
+    }
+
+    @Override
+    protected boolean updateObserver(SkinObserver observer, Object arg, long deadlineNanos) {
+        SkinLoadMetricsListener listener = mMetricsListener;
+        if (listener == null || !(observer instanceof SkinIncrementalObserver)) {
+            return super.updateObserver(observer, arg, deadlineNanos);
+        }
+        if (observer != mMeasuredObserver) {
+            mMeasuredObserver = observer;
+            mMeasuredObserverNanos = 0;
+            mAppliedViewCount = 0;
+        }
+        long start = System.nanoTime();
+        boolean finished = super.updateObserver(observer, arg, deadlineNanos);
+        mMeasuredObserverNanos += System.nanoTime() - start;
+        if (finished) {
+            mMeasuredObserver = null;
+            listener.onObserverUpdated(observer, mMeasuredObserverNanos, mAppliedViewCount);
+        }
+        return finished;
+    }
+
+    /**
+     * 在运行时覆盖单个颜色资源, 优先于所有皮肤包. 在主线程中调用.
+     * <p>
+     * 只更新记录了该资源的View, 参考{@link #notifyResourcesChanged(int...)}.
+     *
+     * @param resId 应用中的颜色资源ID.
+     * @param color 颜色值.
+     * @return
+     */
+    public SkinCompatManager setColorOverride(int resId, int color) {
+        return setResourceOverride(resId, color);
+    }
+
+    /**
+     * 在运行时覆盖单个{@link ColorStateList}资源, 优先于所有皮肤包. 在主线程中调用.
+     * <p>
+     * 只更新记录了该资源的View, 参考{@link #notifyResourcesChanged(int...)}.
+     *
+     * @param resId          应用中的颜色资源ID.
+     * @param colorStateList 颜色.
+     * @return
+     */
+    public SkinCompatManager setColorStateListOverride(int resId, ColorStateList colorStateList) {
+        return setResourceOverride(resId, colorStateList);
+    }
+
+    /**
+     * 在运行时覆盖单个Drawable资源, 优先于所有皮肤包. 在主线程中调用.
+     * <p>
+     * 只更新记录了该资源的View, 参考{@link #notifyResourcesChanged(int...)}.
+     *
+     * @param resId   应用中的资源ID.
+     * @param factory 创建用于替换的Drawable.
+     * @return
+     */
+    public SkinCompatManager setDrawableOverride(int resId, SkinDrawableFactory factory) {
+        return setResourceOverride(resId, factory);
+    }
+
+    /**
+     * 移除运行时覆盖的资源, 恢复使用皮肤包或应用中的资源. 在主线程中调用.
+     *
+     * @param resId 应用中的资源ID.
+     * @return
+     */
+    public SkinCompatManager removeResourceOverride(int resId) {
+        return setResourceOverride(resId, null);
+    }
+
+    /**
+     * 移除所有运行时覆盖的资源. 在主线程中调用.
+     *
+     * @return
+     */
+    public SkinCompatManager clearResourceOverrides() {
+        notifyResourcesChanged(SkinCompatResources.getInstance(mAppContext).clearResourceOverrides());
+        return this;
+    }
+
+    private SkinCompatManager setResourceOverride(int resId, Object override) {
+        SkinCompatResources.getInstance(mAppContext).setResourceOverride(resId, override);
+        notifyResourcesChanged(resId);
+        return this;
+    }
+
+    /**
+     * 部分资源发生变化时, 只重新设置使用了这些资源的View, 在主线程中调用.
+     * <p>
+     * 只有通过{@link skin.support.widget.SkinCompatHelper}设置资源的View会记录使用的资源.
+     * 在{@link skin.support.widget.SkinCompatSupportable#applySkin()}中
+     * 直接读取资源的View(如Toolbar标题颜色, CircleImageView边框颜色及自定义View), Window背景和自定义的观察者
+     * 不会更新, 需要等到下次换肤或调用{@link #notifyUpdateSkin()}.
+     *
+     * @param resIds 发生变化的应用资源ID.
+     * @return 更新的View数.
+     */
+    public int notifyResourcesChanged(int... resIds) {
+        return SkinResDependencyIndex.getInstance().invalidate(resIds);
+    }
+
+    /**
+     * 通知所有观察者重新换肤. 皮肤版本号加1, 已经应用过当前皮肤的View也会重新设置资源,
+     * 用于应用修改了自定义加载策略等影响资源查找的状态后强制刷新. 在主线程中调用.
+     */
+    @Override
+    public void notifyUpdateSkin(Object arg) {
+        SkinCompatResources.getInstance(mAppContext).republish();
+        super.notifyUpdateSkin(arg);
+    }
+
+    /**
+     * 按每帧的时间预算分片通知所有观察者重新换肤, 皮肤版本号加1, 参考{@link #notifyUpdateSkin(Object)}.
+     */
+    @Override
+    public void notifyUpdateSkin(Object arg, long frameBudgetNanos, Runnable onComplete, Runnable onCancel) {
+        SkinCompatResources.getInstance(mAppContext).republish();
+        super.notifyUpdateSkin(arg, frameBudgetNanos, onComplete, onCancel);
+    }
+
+    /**
+     * 新的皮肤已经通过{@link SkinCompatResources#publish(List)}生效, 通知观察者时不再改变皮肤版本号.
+     */
+    private void notifySkinPublished() {
+        super.notifyUpdateSkin(null);
+    }
+
+    private void notifySkinPublished(Runnable onComplete, Runnable onCancel) {
+        super.notifyUpdateSkin(null, mSkinApplyFrameBudgetNanos, onComplete, onCancel);
+    }
+
     /**
      * 加载记录的皮肤包，一般在Application中初始化换肤框架后调用.
      *
@@ -244,29 +690,58 @@ public class SkinCompatManager extends SkinObservable {
      * @return
      */
     public void loadSkin(SkinLoaderListener listener) {
-        String skin = SkinPreference.getInstance(mAppContext).getSkinName();
-        String strategy = SkinPreference.getInstance(mAppContext).getSkinStrategy();
-        if (!TextUtils.isEmpty(skin) && !TextUtils.isEmpty(strategy)) {
-            try {
-                String[] nameArray = skin.split(SKIN_SEPARATOR);
-                String[] strategyArray = strategy.split(SKIN_SEPARATOR);
-                if (nameArray.length == strategyArray.length) {
-                    int count = nameArray.length;
-                    List<String> skinNames = new ArrayList<>();
-                    List<Integer> strategies = new ArrayList<>();
-                    for (int i = 0; i < count; i++) {
-                        skinNames.add(nameArray[i]);
-                        strategies.add(Integer.valueOf(strategyArray[i]));
-                    }
-                    loadSkin(skinNames, strategies, SkinPreference.getInstance(mAppContext).getAffixesType(),
-                            SkinPreference.getInstance(mAppContext).getAffixesStr(), listener);
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+        SkinLoadTask task = createRestoreTask(listener);
+        if (task != null) {
+            task.execute();
         }
     }
 
+    /**
+     * 同步加载记录的皮肤包, 超时后在后台继续加载.
+     *
+     * @param timeoutMillis 最长等待时间.
+     * @return 已在等待时间内生效或没有记录的皮肤包返回true, 超时返回false.
+     */
+    public boolean loadSkinSync(long timeoutMillis) {
+        return loadSkinSync(timeoutMillis, null);
+    }
+
+    /**
+     * 同步加载记录的皮肤包, 在Application.onCreate()中初始化换肤框架后于主线程调用,
+     * 在第一个Activity创建前生效, Activity创建View时直接使用皮肤包资源, 无需再次换肤.
+     *
+     * @param timeoutMillis 最长等待时间, 超时后在后台继续加载, 加载完成后生效.
+     * @param listener      皮肤包加载监听.
+     * @return 已在等待时间内生效或没有记录的皮肤包返回true, 超时返回false.
+     */
+    public boolean loadSkinSync(long timeoutMillis, SkinLoaderListener listener) {
+        SkinLoadTask task = createRestoreTask(listener);
+        if (task == null) {
+            return true;
+        }
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            task.execute();
+            return false;
+        }
+        return task.executeAndWait(timeoutMillis);
+    }
+
+    private SkinLoadTask createRestoreTask(SkinLoaderListener listener) {
+        SkinState state = SkinPreference.getInstance(mAppContext).getSkinState();
+        if (state.isDefault()) {
+            return null;
+        }
+        int count = state.getLayerCount();
+        List<String> skinNames = new ArrayList<>(count);
+        List<Integer> strategies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            skinNames.add(state.getLayer(i).getSkinName());
+            strategies.add(state.getLayer(i).getStrategy());
+        }
+        return new SkinLoadTask(mLoadSequence.incrementAndGet(), skinNames, strategies,
+                state.getAffixesType(), state.getAffixesStr(), listener, state);
+    }
+
     /**
      * 加载皮肤包.
      *
@@ -325,46 +800,277 @@ public class SkinCompatManager extends SkinObservable {
      * @return
      */
     public void loadSkin(List<String> skinNames, List<Integer> strategies, int affixesType, String affixesStr, SkinLoaderListener listener) {
-        new SkinLoadTask(skinNames, strategies, affixesType, affixesStr, listener).execute();
+        new SkinLoadTask(mLoadSequence.incrementAndGet(), skinNames, strategies,
+                affixesType, affixesStr, listener).execute();
+    }
+
+    /**
+     * 预加载皮肤包, 之后调用{@link #loadSkin(String, int)}时可直接生效.
+     *
+     * @param skinName 皮肤包名称.
+     * @param strategy 皮肤包加载策略.
+     */
+    public void prefetchSkin(String skinName, int strategy) {
+        if (strategy == SKIN_LOADER_STRATEGY_BUILD_IN) {
+            prefetchSkin(skinName, strategy, SkinLoaderStrategy.PREFIX, skinName);
+        } else {
+            prefetchSkin(skinName, strategy, SkinLoaderStrategy.NONE, "");
+        }
+    }
+
+    /**
+     * 在后台预加载皮肤包, 包括拷贝皮肤包, 创建{@link Resources}及建立资源ID映射表.
+     * 预加载的皮肤包按内存大小保留最近的1~3个, 之后以相同参数调用{@link #loadSkin(String, int, int, String)}时可直接生效.
+     *
+     * @param skinName    皮肤包名称.
+     * @param strategy    皮肤包加载策略.
+     * @param affixesType 词缀类型
+     * @param affixesStr  词缀名
+     */
+    public void prefetchSkin(final String skinName, int strategy, int affixesType, String affixesStr) {
+        final SkinLoaderStrategy loaderStrategy = mStrategyMap.get(strategy);
+        if (TextUtils.isEmpty(skinName) || loaderStrategy == null) {
+            return;
+        }
+        final SkinConfig config = new SkinConfig(affixesType, affixesStr);
+        final String key = getPreparedSkinKey(skinName, strategy, config);
+        if (mPreparedSkins.get(key) != null) {
+            return;
+        }
+        synchronized (mPrefetchingKeys) {
+            if (!mPrefetchingKeys.add(key)) {
+                return;
+            }
+        }
+        mLayerExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    synchronized (getSkinLock(skinName)) {
+                        // 等待期间已被换肤加载或预加载.
+                        if (mPreparedSkins.get(key) != null) {
+                            return;
+                        }
+                        List<SkinCompatResources.SkinEntry> entries = captureLayer(loaderStrategy, skinName, config);
+                        if (entries == null) {
+                            return;
+                        }
+                        for (SkinCompatResources.SkinEntry entry : entries) {
+                            long start = startLoadPhase();
+                            if (mSkinResFilterEnable) {
+                                entry.buildResFilter();
+                            }
+                            if (mSkinResIdIndexEnable) {
+                                entry.buildResIdIndex();
+                            }
+                            reportLoadPhase(SkinLoadMetricsListener.PHASE_INDEX_BUILD, entry.getSkinName(), start);
+                        }
+                        mPreparedSkins.put(key, entries);
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    synchronized (mPrefetchingKeys) {
+                        mPrefetchingKeys.remove(key);
+                    }
+                }
+            }
+        });
+    }
+
+    private Object getSkinLock(String skinName) {
+        synchronized (mSkinLocks) {
+            Object lock = mSkinLocks.get(skinName);
+            if (lock == null) {
+                lock = new Object();
+                mSkinLocks.put(skinName, lock);
+            }
+            return lock;
+        }
+    }
+
+    /**
+     * 释放所有预加载的皮肤包.
+     */
+    public void clearPreparedSkins() {
+        mPreparedSkins.evictAll();
+    }
+
+    private static String getPreparedSkinKey(String skinName, int strategy, SkinConfig config) {
+        return skinName + SKIN_SEPARATOR + strategy + SKIN_SEPARATOR
+                + config.getAffixesType() + SKIN_SEPARATOR + config.getAffixesStr();
+    }
+
+    private void releaseSkinEntries(List<SkinCompatResources.SkinEntry> entries) {
+        SkinCompatResources resources = SkinCompatResources.getInstance(mAppContext);
+        for (SkinCompatResources.SkinEntry entry : entries) {
+            if (!resources.isPublished(entry)) {
+                entry.release();
+            }
+        }
+    }
+
+    /**
+     * 加载单个皮肤包, 已预加载时直接使用预加载的结果; 正在预加载时等待预加载完成.
+     *
+     * @return 加载失败返回null.
+     */
+    private List<SkinCompatResources.SkinEntry> loadLayer(SkinLoaderStrategy strategy, String skinName,
+                                                          SkinConfig config) {
+        synchronized (getSkinLock(skinName)) {
+            List<SkinCompatResources.SkinEntry> prepared =
+                    mPreparedSkins.remove(getPreparedSkinKey(skinName, strategy.getType(), config));
+            if (prepared != null) {
+                return prepared;
+            }
+            return captureLayer(strategy, skinName, config);
+        }
+    }
+
+    private List<SkinCompatResources.SkinEntry> captureLayer(SkinLoaderStrategy strategy, String skinName,
+                                                             SkinConfig config) {
+        SkinCompatResources resources = SkinCompatResources.getInstance(mAppContext);
+        String path;
+        List<SkinCompatResources.SkinEntry> entries;
+        resources.beginCapture(config);
+        try {
+            path = strategy.loadSkinInBackground(mAppContext, skinName);
+        } finally {
+            entries = resources.endCapture();
+        }
+        return TextUtils.isEmpty(path) ? null : entries;
+    }
+
+    private void runOnMainThread(Runnable runnable) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            runnable.run();
+        } else {
+            mMainHandler.post(runnable);
+        }
     }
 
-    private class SkinLoadTask extends AsyncTask<Void, Void, Boolean> {
+    /**
+     * 在单线程中依次加载皮肤包, 有新的加载请求时, 尚未生效的加载会被取消.
+     */
+    private class SkinLoadTask implements Runnable {
+        private static final int DELIVER_POSTED = 0;
+        private static final int DELIVER_WAITING = 1;
+        private static final int DELIVER_SYNC = 2;
+        private final int mSequence;
         private final SkinLoaderListener mListener;
         private final List<String> mSkinNames;
         private final List<Integer> mStrategies;
         private final int mAffixesType;
         private final String mAffixesStr;
+        private final SkinConfig mConfig;
+        private List<SkinCompatResources.SkinEntry> mEntries = Collections.emptyList();
+        // 同步加载时, 加载线程与等待的主线程通过该状态决定由谁使加载结果生效.
+        private final AtomicInteger mDeliverState = new AtomicInteger(DELIVER_POSTED);
+        private final CountDownLatch mFinished = new CountDownLatch(1);
+        private volatile boolean mSuccess;
+        private SkinState mRestoredState;
+        private SkinState mState = SkinState.DEFAULT;
 
-        SkinLoadTask(List<String> skinNames, List<Integer> strategies,
+        SkinLoadTask(int sequence, List<String> skinNames, List<Integer> strategies,
                      int affixesType, String affixesStr, SkinLoaderListener listener) {
+            mSequence = sequence;
             mListener = listener;
             mSkinNames = skinNames;
             mStrategies = strategies;
             mAffixesType = affixesType;
             mAffixesStr = affixesStr;
+            mConfig = new SkinConfig(affixesType, affixesStr);
         }
 
-        protected void onPreExecute() {
-            if (mListener != null) {
-                mListener.onStart();
+        /**
+         * @param restoredState 恢复记录的皮肤包时, 记录的皮肤包状态.
+         */
+        SkinLoadTask(int sequence, List<String> skinNames, List<Integer> strategies,
+                     int affixesType, String affixesStr, SkinLoaderListener listener,
+                     SkinState restoredState) {
+            this(sequence, skinNames, strategies, affixesType, affixesStr, listener);
+            mRestoredState = restoredState;
+        }
+
+        void execute() {
+            runOnMainThread(new Runnable() {
+                @Override
+                public void run() {
+                    onPreExecute();
+                }
+            });
+            mLoadExecutor.execute(this);
+        }
+
+        /**
+         * 在主线程中调用, 等待加载完成后直接生效; 超时后转为异步加载.
+         *
+         * @return 在等待时间内生效返回true.
+         */
+        boolean executeAndWait(long timeoutMillis) {
+            mDeliverState.set(DELIVER_WAITING);
+            onPreExecute();
+            mLoadExecutor.execute(this);
+            try {
+                mFinished.await(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (mDeliverState.compareAndSet(DELIVER_WAITING, DELIVER_POSTED)) {
+                // 超时, 由后台线程完成后通过Handler生效.
+                return false;
+            }
+            try {
+                mFinished.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+            deliver();
+            return !isCancelled() && mSuccess;
+        }
+
+        private boolean isCancelled() {
+            return mSequence != mLoadSequence.get();
         }
 
         @Override
-        protected Boolean doInBackground(Void... params) {
-            synchronized (mLock) {
-                while (mLoading) {
-                    try {
-                        mLock.wait();
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
+        public void run() {
+            mSuccess = !isCancelled() && doInBackground();
+            boolean waiting = mDeliverState.compareAndSet(DELIVER_WAITING, DELIVER_SYNC);
+            mFinished.countDown();
+            if (waiting) {
+                return;
+            }
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    deliver();
                 }
-                mLoading = true;
+            });
+        }
+
+        private void deliver() {
+            if (isCancelled()) {
+                onCancelled();
+            } else {
+                onPostExecute(mSuccess);
             }
+        }
+
+        private void onPreExecute() {
+            if (mListener != null) {
+                mListener.onStart();
+            }
+        }
+
+        private boolean doInBackground() {
             boolean success = false;
             try {
                 SkinCompatResources.getInstance(mAppContext).reset();
+                SkinCompatResources.getInstance(mAppContext).setSkinConfig(mConfig);
+                if (mRestoredState != null) {
+                    restoreChecksums(mRestoredState);
+                }
                 if (mSkinNames == null || mStrategies == null || mSkinNames.isEmpty()) {
                     return true;
                 }
@@ -373,66 +1079,235 @@ public class SkinCompatManager extends SkinObservable {
                 }
 
                 int skinCount = mSkinNames.size();
-                for (int i = skinCount - 1; i >= 0; i--) {
-                    String path = mStrategyMap.get(mStrategies.get(i))
-                            .loadSkinInBackground(mAppContext, mSkinNames.get(i));
-                    success = !TextUtils.isEmpty(path);
+                if (skinCount == 1) {
+                    List<SkinCompatResources.SkinEntry> entries = loadLayer(
+                            mStrategyMap.get(mStrategies.get(0)), mSkinNames.get(0), mConfig);
+                    success = entries != null;
+                    if (entries != null) {
+                        for (SkinCompatResources.SkinEntry entry : entries) {
+                            SkinCompatResources.getInstance(mAppContext).addSkinEntry(entry);
+                        }
+                    }
+                } else {
+                    success = loadLayersInParallel();
+                }
+                if (success && (mSkinResFilterEnable || mSkinResIdIndexEnable)) {
+                    List<SkinCompatResources.SkinEntry> entries =
+                            SkinCompatResources.getInstance(mAppContext).getPendingSkinEntries();
+                    for (SkinCompatResources.SkinEntry entry : entries) {
+                        if (isCancelled()) {
+                            success = false;
+                            break;
+                        }
+                        long start = startLoadPhase();
+                        // 预加载的皮肤包已建立过.
+                        if (mSkinResFilterEnable && entry.getResFilter() == null) {
+                            entry.buildResFilter();
+                        }
+                        if (mSkinResIdIndexEnable && entry.getResIdIndex() == null) {
+                            entry.buildResIdIndex();
+                        }
+                        reportLoadPhase(SkinLoadMetricsListener.PHASE_INDEX_BUILD, entry.getSkinName(), start);
+                    }
                 }
             } catch (Exception e) {
                 e.printStackTrace();
             }
-            if (!success) {
+            if (success) {
+                mEntries = SkinCompatResources.getInstance(mAppContext).getPendingSkinEntries();
+                mState = createSkinState();
+                if (mSkinResPrepareEnable && !isCancelled()) {
+                    prepareResources();
+                }
+            } else {
+                // 加载失败或被取消, 已加载的皮肤包不会再生效.
+                releaseSkinEntries(SkinCompatResources.getInstance(mAppContext).getPendingSkinEntries());
                 SkinCompatResources.getInstance(mAppContext).reset();
             }
             return success;
         }
 
-        protected void onPostExecute(Boolean success) {
-            synchronized (mLock) {
-                if (success) {
-                    if (mSkinNames == null || mSkinNames.isEmpty()) {
-                        SkinPreference.getInstance(mAppContext)
-                                .setSkinName("")
-                                .setSkinStrategy("")
-                                .setAffixesType(SkinLoaderStrategy.NONE)
-                                .setAffixesStr("")
-                                .commitEditor();
-                    } else {
-                        StringBuilder skinName = new StringBuilder();
-                        StringBuilder skinStrategy = new StringBuilder();
-                        int skinCount = mSkinNames.size();
-                        for (int i = 0; i < skinCount; i++) {
-                            if (i != 0) {
-                                skinName.append(SKIN_SEPARATOR);
-                                skinStrategy.append(SKIN_SEPARATOR);
-                            }
-                            skinName.append(mSkinNames.get(i));
-                            skinStrategy.append(mStrategies.get(i));
-                        }
-                        SkinPreference.getInstance(mAppContext)
-                                .setSkinName(skinName.toString())
-                                .setSkinStrategy(skinStrategy.toString())
-                                .setAffixesType(mAffixesType)
-                                .setAffixesStr(mAffixesStr)
-                                .commitEditor();
+        /**
+         * 解析当前View使用的资源, 换肤时主线程直接从新皮肤的缓存中取值.
+         */
+        private void prepareResources() {
+            long start = startLoadPhase();
+            try {
+                SkinCompatResources.getInstance(mAppContext).prepare(
+                        mEntries, SkinResDependencyIndex.getInstance().getResIds());
+            } catch (Exception e) {
+                // 预先解析失败不影响换肤, 生效时在主线程中读取.
+                e.printStackTrace();
+            }
+            reportLoadPhase(SkinLoadMetricsListener.PHASE_RESOURCES_PREPARE, null, start);
+        }
+
+        /**
+         * 皮肤包文件未变化时直接使用记录的校验值, 无需重新读取整个文件.
+         */
+        private void restoreChecksums(SkinState state) {
+            for (int i = 0; i < state.getLayerCount(); i++) {
+                SkinState.Layer layer = state.getLayer(i);
+                if (TextUtils.isEmpty(layer.getSkinPath()) || layer.getChecksum() == 0) {
+                    continue;
+                }
+                File file = new File(layer.getSkinPath());
+                if (file.length() == layer.getLength() && file.lastModified() == layer.getLastModified()) {
+                    SkinFileUtils.putFileChecksum(layer.getSkinPath(),
+                            layer.getLength(), layer.getLastModified(), layer.getChecksum());
+                }
+            }
+        }
+
+        private SkinState createSkinState() {
+            if (mSkinNames == null || mSkinNames.isEmpty()) {
+                return SkinState.DEFAULT;
+            }
+            int skinCount = mSkinNames.size();
+            SkinState.Layer[] layers = new SkinState.Layer[skinCount];
+            for (int i = 0; i < skinCount; i++) {
+                String skinName = mSkinNames.get(i);
+                String skinPath = null;
+                for (SkinCompatResources.SkinEntry entry : mEntries) {
+                    if (TextUtils.equals(skinName, entry.getSkinName()) && !TextUtils.isEmpty(entry.getSkinPath())) {
+                        skinPath = entry.getSkinPath();
+                        break;
                     }
-                    notifyUpdateSkin();
-                    if (mListener != null) mListener.onSuccess();
+                }
+                if (skinPath == null) {
+                    layers[i] = new SkinState.Layer(skinName, mStrategies.get(i), "", 0, 0, 0);
                 } else {
-                    SkinPreference.getInstance(mAppContext)
-                            .setSkinName("")
-                            .setSkinStrategy("")
-                            .setAffixesType(SkinLoaderStrategy.NONE)
-                            .setAffixesStr("")
-                            .commitEditor();
-                    if (mListener != null) mListener.onFailed("皮肤资源获取失败");
+                    File file = new File(skinPath);
+                    // 校验值只用于资源ID映射表, 建立映射表时已经计算过, 此时直接从缓存中读取.
+                    long checksum = mSkinResIdIndexEnable ? SkinFileUtils.getFileChecksum(skinPath) : 0;
+                    layers[i] = new SkinState.Layer(skinName, mStrategies.get(i), skinPath,
+                            file.length(), file.lastModified(), checksum);
+                }
+            }
+            return new SkinState(layers, mAffixesType, mAffixesStr);
+        }
+
+        /**
+         * 并行加载各个皮肤包, 完成后按原有顺序(从后往前)加入待生效列表.
+         */
+        private boolean loadLayersInParallel() {
+            int skinCount = mSkinNames.size();
+            List<Future<List<SkinCompatResources.SkinEntry>>> futures = new ArrayList<>(skinCount);
+            for (int i = 0; i < skinCount; i++) {
+                futures.add(mLayerExecutor.submit(new LayerLoadTask(
+                        mStrategyMap.get(mStrategies.get(i)), mSkinNames.get(i), mConfig)));
+            }
+            boolean success = false;
+            for (int i = skinCount - 1; i >= 0; i--) {
+                if (isCancelled()) {
+                    for (int j = 0; j <= i; j++) {
+                        releaseLayer(futures.get(j));
+                    }
+                    return false;
+                }
+                List<SkinCompatResources.SkinEntry> entries = null;
+                try {
+                    entries = futures.get(i).get();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                success = entries != null;
+                if (entries != null) {
+                    for (SkinCompatResources.SkinEntry entry : entries) {
+                        SkinCompatResources.getInstance(mAppContext).addSkinEntry(entry);
+                    }
+                }
+            }
+            return success;
+        }
+
+        private void onCancelled() {
+            // 加载完成后被新的加载取代, 释放未生效的皮肤包及预先解析的资源.
+            SkinCompatResources.getInstance(mAppContext).discardPrepared(mEntries);
+            releaseSkinEntries(mEntries);
+            mEntries = Collections.emptyList();
+            notifyCancelled();
+        }
+
+        private void notifyCancelled() {
+            if (mListener instanceof SkinLoaderCancelListener) {
+                ((SkinLoaderCancelListener) mListener).onCancelled();
+            } else if (mListener != null) {
+                mListener.onFailed(SKIN_LOADER_CANCELLED);
+            }
+        }
+
+        private void onPostExecute(boolean success) {
+            SkinCompatResources.getInstance(mAppContext).publish(mEntries);
+            long start = startLoadPhase();
+            if (success) {
+                SkinPreference.getInstance(mAppContext).setSkinState(mState);
+                reportLoadPhase(SkinLoadMetricsListener.PHASE_PREFERENCE_COMMIT, null, start);
+                final long notifyStart = startLoadPhase();
+                if (mSkinApplyFrameBudgetNanos > 0) {
+                    notifySkinPublished(new Runnable() {
+                        @Override
+                        public void run() {
+                            reportLoadPhase(SkinLoadMetricsListener.PHASE_NOTIFY, null, notifyStart);
+                            if (mListener != null) mListener.onSuccess();
+                        }
+                    }, new Runnable() {
+                        @Override
+                        public void run() {
+                            // 换肤尚未完成就被新的皮肤取代.
+                            notifyCancelled();
+                        }
+                    });
+                    return;
                 }
-                mLoading = false;
-                mLock.notifyAll();
+                notifySkinPublished();
+                reportLoadPhase(SkinLoadMetricsListener.PHASE_NOTIFY, null, notifyStart);
+                if (mListener != null) mListener.onSuccess();
+            } else {
+                SkinPreference.getInstance(mAppContext).setSkinState(SkinState.DEFAULT);
+                reportLoadPhase(SkinLoadMetricsListener.PHASE_PREFERENCE_COMMIT, null, start);
+                if (mListener != null) mListener.onFailed("皮肤资源获取失败");
             }
         }
     }
 
+    /**
+     * 取消尚未开始的加载, 已经开始的等待完成后释放.
+     */
+    private void releaseLayer(Future<List<SkinCompatResources.SkinEntry>> future) {
+        if (future.cancel(false)) {
+            return;
+        }
+        try {
+            List<SkinCompatResources.SkinEntry> entries = future.get();
+            if (entries != null) {
+                releaseSkinEntries(entries);
+            }
+        } catch (Exception e) {
+            // 加载失败, 没有需要释放的皮肤包.
+        }
+    }
+
+    private class LayerLoadTask implements Callable<List<SkinCompatResources.SkinEntry>> {
+        private final SkinLoaderStrategy mStrategy;
+        private final String mSkinName;
+        private final SkinConfig mConfig;
+
+        LayerLoadTask(SkinLoaderStrategy strategy, String skinName, SkinConfig config) {
+            mStrategy = strategy;
+            mSkinName = skinName;
+            mConfig = config;
+        }
+
+        /**
+         * @return 加载失败返回null.
+         */
+        @Override
+        public List<SkinCompatResources.SkinEntry> call() {
+            return loadLayer(mStrategy, mSkinName, mConfig);
+        }
+    }
+
     /**
      * 获取皮肤包包名.
      *
@@ -440,9 +1315,13 @@ public class SkinCompatManager extends SkinObservable {
      * @return
      */
     public String getSkinPackageName(String skinPkgPath) {
+        String packageName = SkinApkUtils.getPackageName(skinPkgPath);
+        if (!TextUtils.isEmpty(packageName)) {
+            return packageName;
+        }
         PackageManager mPm = mAppContext.getPackageManager();
-        PackageInfo info = mPm.getPackageArchiveInfo(skinPkgPath, PackageManager.GET_ACTIVITIES);
-        return info.packageName;
+        PackageInfo info = mPm.getPackageArchiveInfo(skinPkgPath, 0);
+        return info == null ? null : info.packageName;
     }
 
     /**
@@ -15,6 +15,7 @@ import java.util.WeakHashMap;
 
 import skin.support.SkinCompatManager;
 import skin.support.content.res.SkinCompatResources;
+import skin.support.observe.SkinIncrementalObserver;
 import skin.support.observe.SkinObservable;
 import skin.support.observe.SkinObserver;
 import skin.support.widget.SkinCompatSupportable;
@@ -27,6 +28,8 @@ public class SkinActivityLifecycle implements Application.ActivityLifecycleCallb
     private static final Map<Context, SkinActivityLifecycle> sInstanceMap = new HashMap<>();
     private WeakHashMap<Context, SkinDelegate> mSkinDelegateMap;
     private WeakHashMap<Context, SkinObserver> mSkinObserverMap;
+    // 已停止的Activity不再监听换肤, 记录停止时的皮肤版本, 重新显示时再换肤.
+    private WeakHashMap<Context, Integer> mStoppedGenerationMap = new WeakHashMap<>();
 
     public static SkinActivityLifecycle init(Application application) {
         SkinActivityLifecycle instance = sInstanceMap.get(application);
@@ -79,16 +82,24 @@ public class SkinActivityLifecycle implements Application.ActivityLifecycleCallb
         }
         SkinObserver observer = mSkinObserverMap.get(context);
         if (observer == null) {
-            observer = new SkinObserver() {
+            observer = new SkinIncrementalObserver() {
                 @Override
                 public void updateSkin(SkinObservable observable, Object o) {
-                    getSkinDelegate(context).applySkin();
+                    updateSkin(observable, o, Long.MAX_VALUE);
+                }
+
+                @Override
+                public boolean updateSkin(SkinObservable observable, Object o, long deadlineNanos) {
+                    if (!getSkinDelegate(context).applySkin(deadlineNanos)) {
+                        return false;
+                    }
                     if (context instanceof Activity && isContextSkinEnable((Activity) context)) {
                         updateWindowBackground((Activity) context);
                     }
                     if (context instanceof SkinCompatSupportable) {
                         ((SkinCompatSupportable) context).applySkin();
                     }
+                    return true;
                 }
             };
         }
@@ -109,13 +120,24 @@ public class SkinActivityLifecycle implements Application.ActivityLifecycleCallb
 
     @Override
     public void onActivityStarted(Activity activity) {
-
+        if (isContextSkinEnable(activity)) {
+            Integer generation = mStoppedGenerationMap.remove(activity);
+            SkinObserver observer = getObserver(activity);
+            if (generation != null
+                    && generation != SkinCompatResources.getInstance(activity).getGeneration()) {
+                observer.updateSkin(SkinCompatManager.getInstance(activity), null);
+            }
+            SkinCompatManager.getInstance(activity).addObserver(observer);
+        }
     }
 
     @Override
     public void onActivityResumed(Activity activity) {
         if (isContextSkinEnable(activity)) {
-            SkinCompatManager.getInstance(activity).addObserver(getObserver(activity));
+            // 观察者从后往前通知, 移到最后使最近显示的Activity最先换肤.
+            SkinObserver observer = getObserver(activity);
+            SkinCompatManager.getInstance(activity).deleteObserver(observer);
+            SkinCompatManager.getInstance(activity).addObserver(observer);
         }
     }
 
@@ -125,7 +147,10 @@ public class SkinActivityLifecycle implements Application.ActivityLifecycleCallb
 
     @Override
     public void onActivityStopped(Activity activity) {
-
+        if (isContextSkinEnable(activity)) {
+            SkinCompatManager.getInstance(activity).deleteObserver(getObserver(activity));
+            mStoppedGenerationMap.put(activity, SkinCompatResources.getInstance(activity).getGeneration());
+        }
     }
 
     @Override
@@ -139,6 +164,7 @@ public class SkinActivityLifecycle implements Application.ActivityLifecycleCallb
             SkinCompatManager.getInstance(activity).deleteObserver(getObserver(activity));
             mSkinObserverMap.remove(activity);
             mSkinDelegateMap.remove(activity);
+            mStoppedGenerationMap.remove(activity);
         }
     }
 
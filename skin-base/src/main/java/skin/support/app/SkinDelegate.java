@@ -10,19 +10,32 @@ import android.util.AttributeSet;
 import android.view.View;
 import android.view.ViewParent;
 
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.List;
 
+import skin.support.SkinCompatManager;
+import skin.support.content.res.SkinCompatResources;
 import skin.support.widget.SkinCompatSupportable;
 
 public class SkinDelegate implements LayoutInflaterFactory {
     private final Context mContext;
     private SkinViewInflater mSkinCompatViewInflater;
-    private List<WeakReference<SkinCompatSupportable>> mSkinHelpers = new ArrayList<>();
+    private static final int APPLY_FINISHED = -1;
+    // 已回收的View超过该数量且超过总数一半时压缩列表.
+    private static final int MIN_COMPACT_COUNT = 32;
+    private final ArrayList<HelperReference> mSkinHelpers = new ArrayList<>();
+    private final ReferenceQueue<SkinCompatSupportable> mReferenceQueue = new ReferenceQueue<>();
+    // 列表中已回收的View数.
+    private int mDeadCount;
+    // 之后创建的View都已在inflate时使用当前皮肤.
+    private int mSkinGeneration;
+    // 分帧换肤时下一个需要换肤的View.
+    private int mApplyPosition = APPLY_FINISHED;
 
     private SkinDelegate(Context context) {
         mContext = context;
+        mSkinGeneration = SkinCompatResources.getInstance(context).getGeneration();
     }
 
     @Override
@@ -33,12 +46,17 @@ public class SkinDelegate implements LayoutInflaterFactory {
             return null;
         }
         if (view instanceof SkinCompatSupportable) {
-            mSkinHelpers.add(new WeakReference<>((SkinCompatSupportable) view));
+            addSkinHelper((SkinCompatSupportable) view);
         }
 
         return view;
     }
 
+    void addSkinHelper(SkinCompatSupportable view) {
+        purge();
+        mSkinHelpers.add(new HelperReference(view, mReferenceQueue));
+    }
+
     public View createView(View parent, final String name, @NonNull Context context,
                            @NonNull AttributeSet attrs) {
         final boolean isPre21 = Build.VERSION.SDK_INT < 21;
@@ -89,12 +107,115 @@ public class SkinDelegate implements LayoutInflaterFactory {
     }
 
     public void applySkin() {
-        if (mSkinHelpers != null && !mSkinHelpers.isEmpty()) {
-            for (WeakReference ref : mSkinHelpers) {
-                if (ref != null && ref.get() != null) {
-                    ((SkinCompatSupportable) ref.get()).applySkin();
+        applySkin(Long.MAX_VALUE);
+    }
+
+    /**
+     * 分帧换肤, 到截止时间时记录进度, 下次调用时继续.
+     *
+     * @param deadlineNanos 截止时间, 与{@link System#nanoTime()}比较.
+     * @return 所有View换肤完成返回true.
+     */
+    public boolean applySkin(long deadlineNanos) {
+        int generation = SkinCompatResources.getInstance(mContext).getGeneration();
+        if (generation != mSkinGeneration) {
+            mSkinGeneration = generation;
+            mApplyPosition = 0;
+        }
+        if (mApplyPosition == APPLY_FINISHED) {
+            return true;
+        }
+        purge();
+        int count = 0;
+        boolean finished = true;
+        while (mApplyPosition < mSkinHelpers.size()) {
+            SkinCompatSupportable view = mSkinHelpers.get(mApplyPosition++).get();
+            if (view != null) {
+                view.applySkin();
+                count++;
+            }
+            if (mApplyPosition < mSkinHelpers.size() && System.nanoTime() >= deadlineNanos) {
+                finished = false;
+                break;
+            }
+        }
+        if (finished) {
+            mApplyPosition = APPLY_FINISHED;
+        }
+        SkinCompatManager.getInstance(mContext).addAppliedViewCount(count);
+        return finished;
+    }
+
+    /**
+     * @return 仍然存活的View数.
+     */
+    public int getLiveViewCount() {
+        purge();
+        return mSkinHelpers.size() - mDeadCount;
+    }
+
+    /**
+     * @return 已回收但尚未从列表中移除的View数.
+     */
+    public int getDeadViewCount() {
+        purge();
+        return mDeadCount;
+    }
+
+    /**
+     * 统计已回收的View, 数量过多时压缩列表, 使换肤耗时与存活的View数成正比.
+     */
+    private void purge() {
+        HelperReference ref;
+        while ((ref = (HelperReference) mReferenceQueue.poll()) != null) {
+            if (!ref.mRemoved) {
+                mDeadCount++;
+            }
+        }
+        if (mDeadCount >= MIN_COMPACT_COUNT && mDeadCount * 2 > mSkinHelpers.size()) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        int size = mSkinHelpers.size();
+        int position = mApplyPosition;
+        int write = 0;
+        for (int read = 0; read < size; read++) {
+            HelperReference ref = mSkinHelpers.get(read);
+            if (ref.get() != null) {
+                mSkinHelpers.set(write++, ref);
+            } else {
+                // 已被回收但尚未进入队列的引用, 之后出队时不再计数.
+                ref.mRemoved = true;
+                if (mApplyPosition != APPLY_FINISHED && read < mApplyPosition) {
+                    position--;
                 }
             }
         }
+        mSkinHelpers.subList(write, size).clear();
+        mApplyPosition = position;
+        mDeadCount = 0;
+    }
+
+    /**
+     * 模拟View被回收, 引用被清除并进入队列, 只用于测试.
+     */
+    void clearReference(SkinCompatSupportable view) {
+        for (HelperReference ref : mSkinHelpers) {
+            if (ref.get() == view) {
+                ref.clear();
+                ref.enqueue();
+                return;
+            }
+        }
+    }
+
+    private static class HelperReference extends WeakReference<SkinCompatSupportable> {
+        boolean mRemoved;
+
+        HelperReference(SkinCompatSupportable referent, ReferenceQueue<SkinCompatSupportable> queue) {
+            super(referent, queue);
+        }
     }
 }
@@ -1,32 +1,103 @@
 package skin.support.content.res;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
 import android.content.res.ColorStateList;
+import android.content.res.Configuration;
 import android.content.res.Resources;
+import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import android.support.v4.content.ContextCompat;
 import android.text.TextUtils;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import skin.support.SkinCompatManager;
+import skin.support.utils.SkinFileUtils;
 import skin.support.utils.SkinPreference;
+import skin.support.utils.SkinState;
 
 public class SkinCompatResources {
     private static final Map<Context, SkinCompatResources> sInstanceMap = new HashMap<>();
+    private static final int APP_LAYER = -1;
+    private static final int APP_SOURCE_ID = 0;
+    /**
+     * 无法确定资源来源, 每次都需要重新设置.
+     */
+    public static final long UNKNOWN_SOURCE = -1;
     private final Context mAppContext;
-    private List<SkinEntry> mSkinEntries = new ArrayList<>();
+    private volatile int mDrawableCacheSize = (int) (Runtime.getRuntime().maxMemory() / 16);
+    // 加载中的皮肤包, 加载完成后通过publish(List)一次性替换mSnapshot.
+    private final List<SkinEntry> mPendingEntries = new ArrayList<>();
+    // 运行时覆盖的资源, 写时复制, 没有覆盖时为null.
+    private volatile SparseArray<Object> mOverrides;
+    private final Object mOverrideLock = new Object();
+    private volatile Snapshot mSnapshot = new Snapshot(new SkinEntry[0], 0, mDrawableCacheSize);
+    // 在后台线程中预先解析好资源的下一个皮肤, publish(List)时皮肤包相同则直接使用, 由mPendingEntries保护.
+    private Snapshot mPreparedSnapshot;
+    private volatile SkinConfig mSkinConfig;
+    // 并行加载多个皮肤包时, 各线程分别收集自己加载的皮肤包, 再按优先级顺序加入待生效列表.
+    private final ThreadLocal<Capture> mCapture = new ThreadLocal<>();
+
+    private static final class Capture {
+        final SkinConfig config;
+        final List<SkinEntry> entries = new ArrayList<>();
+
+        Capture(SkinConfig config) {
+            this.config = config;
+        }
+    }
+
+    private static final class Snapshot {
+        final SkinEntry[] entries;
+        final int generation;
+        // 当前皮肤下已经读取过的颜色值, 换肤时随Snapshot一起替换.
+        final SparseIntArray colors = new SparseIntArray();
+        final SparseArray<ColorStateList> colorStateLists = new SparseArray<>();
+        final SkinDrawableCache drawables;
+        // 资源ID -> 生效的皮肤包下标及其中的资源ID, 多个皮肤包叠加时不必逐个查找.
+        final SparseIntArray layers = new SparseIntArray();
+        final SparseIntArray targetResIds = new SparseIntArray();
+
+        Snapshot(SkinEntry[] entries, int generation, int drawableCacheSize) {
+            this.entries = entries;
+            this.generation = generation;
+            this.drawables = drawableCacheSize > 0 ? new SkinDrawableCache(drawableCacheSize) : null;
+        }
+    }
 
     public static class SkinEntry {
+        private static final int RES_ID_NOT_CACHED = -1;
+        private static final AtomicInteger sNextSourceId = new AtomicInteger(APP_SOURCE_ID + 1);
+        // 区分资源来源, 每个皮肤包实例唯一.
+        private final int mSourceId = sNextSourceId.getAndIncrement();
         private Context mAppContext;
         private Resources mResources;
         private String mSkinPkgName;
         private String mSkinName;
+        private String mSkinPath;
+        // AssetManager由换肤框架创建, 不再使用时关闭.
+        private boolean mOwnsAssets;
 
         private SkinCompatManager.SkinLoaderStrategy mStrategy;
+        // 应用资源ID -> 皮肤包资源ID, 皮肤包中不存在的资源记为0.
+        private final SparseIntArray mTargetResIdCache = new SparseIntArray();
+        private int mCacheHitCount;
+        private int mCacheMissCount;
+        private volatile SkinResIdIndex mResIdIndex;
+        private volatile SkinResFilter mResFilter;
+        private volatile SkinConfig mSkinConfig = SkinConfig.DEFAULT;
 
         public SkinEntry(Context appContext, Resources resources, String pkgName,
                          String skinName, SkinCompatManager.SkinLoaderStrategy strategy) {
@@ -37,21 +108,167 @@ public class SkinCompatResources {
             mStrategy = strategy;
         }
 
+        /**
+         * @param skinPath 皮肤包文件路径, 用于校验磁盘中缓存的资源ID映射表, 应用内换肤时为空.
+         */
+        public SkinEntry(Context appContext, Resources resources, String pkgName,
+                         String skinName, String skinPath, SkinCompatManager.SkinLoaderStrategy strategy) {
+            this(appContext, resources, pkgName, skinName, strategy);
+            mSkinPath = skinPath;
+        }
+
         public Resources getResources() {
             return mResources;
         }
 
+        public String getSkinName() {
+            return mSkinName;
+        }
+
+        public String getSkinPath() {
+            return mSkinPath;
+        }
+
+        /**
+         * 标记皮肤包的AssetManager由换肤框架通过{@link SkinCompatManager#getSkinResources(String)}创建,
+         * 只被该皮肤包使用. 自定义加载策略创建的{@link Resources}可能被缓存或共用, 默认不会关闭.
+         */
+        public void setOwnsAssets(boolean ownsAssets) {
+            mOwnsAssets = ownsAssets;
+        }
+
+        /**
+         * 释放由换肤框架创建的AssetManager, 释放后不能再使用.
+         */
+        public void release() {
+            if (mOwnsAssets) {
+                mResources.getAssets().close();
+            }
+        }
+
         public int getTargetResId(int resId) {
+            SkinResIdIndex index = mResIdIndex;
+            if (index != null) {
+                int targetResId = index.get(resId);
+                if (targetResId != SkinResIdIndex.NOT_INDEXED) {
+                    return targetResId;
+                }
+            }
+            SkinResFilter filter = mResFilter;
+            if (filter != null && !filter.mightContain(resId)) {
+                return 0;
+            }
+            synchronized (mTargetResIdCache) {
+                int targetResId = mTargetResIdCache.get(resId, RES_ID_NOT_CACHED);
+                if (targetResId != RES_ID_NOT_CACHED) {
+                    mCacheHitCount++;
+                    return targetResId;
+                }
+            }
+            int targetResId = findTargetResId(resId);
+            synchronized (mTargetResIdCache) {
+                mTargetResIdCache.put(resId, targetResId);
+                mCacheMissCount++;
+            }
+            return targetResId;
+        }
+
+        public int getCacheHitCount() {
+            synchronized (mTargetResIdCache) {
+                return mCacheHitCount;
+            }
+        }
+
+        public int getCacheMissCount() {
+            synchronized (mTargetResIdCache) {
+                return mCacheMissCount;
+            }
+        }
+
+        public SkinConfig getSkinConfig() {
+            return mSkinConfig;
+        }
+
+        void setSkinConfig(SkinConfig config) {
+            mSkinConfig = config;
+        }
+
+        /**
+         * 在后台线程中建立完整的资源ID映射表, 之后的查询不再调用{@link Resources#getIdentifier}.
+         */
+        public void buildResIdIndex() {
+            SkinResIdIndex.Key key = createResIdIndexKey(mSkinConfig);
+            File dir = new File(SkinFileUtils.getSkinDir(mAppContext));
+            SkinResIdIndex index = key == null ? null : SkinResIdIndex.read(dir, key);
+            if (index == null) {
+                index = SkinResIdIndex.build(mAppContext.getResources(), this);
+                if (key != null) {
+                    index.write(dir, key);
+                }
+            }
+            mResIdIndex = index;
+        }
+
+        private SkinResIdIndex.Key createResIdIndexKey(SkinConfig config) {
+            try {
+                PackageInfo info = mAppContext.getPackageManager()
+                        .getPackageInfo(mAppContext.getPackageName(), 0);
+                long skinChecksum = 0;
+                if (!TextUtils.isEmpty(mSkinPath)) {
+                    skinChecksum = SkinFileUtils.getFileChecksum(mSkinPath);
+                    if (skinChecksum == 0) {
+                        return null;
+                    }
+                }
+                return new SkinResIdIndex.Key(info.versionCode, info.lastUpdateTime, skinChecksum,
+                        mSkinName, mStrategy == null ? -1 : mStrategy.getType(), config);
+            } catch (PackageManager.NameNotFoundException e) {
+                return null;
+            }
+        }
+
+        public SkinResIdIndex getResIdIndex() {
+            return mResIdIndex;
+        }
+
+        /**
+         * 在后台线程中遍历皮肤包资源表, 标记皮肤包中存在的应用资源.
+         */
+        public void buildResFilter() {
+            mResFilter = SkinResFilter.build(mAppContext.getResources(), this);
+        }
+
+        public SkinResFilter getResFilter() {
+            return mResFilter;
+        }
+
+        String getTargetResourceEntryName(int resId) {
             try {
                 String resName = null;
                 if (mStrategy != null) {
+                    SkinConfig config = mSkinConfig;
                     resName = mStrategy.getTargetResourceEntryName(mAppContext, mSkinName, resId,
-                            SkinPreference.getInstance(mAppContext).getAffixesType(),
-                            SkinPreference.getInstance(mAppContext).getAffixesStr());
+                            config.getAffixesType(), config.getAffixesStr());
                 }
                 if (TextUtils.isEmpty(resName)) {
                     resName = mAppContext.getResources().getResourceEntryName(resId);
                 }
+                return resName;
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        int findTargetResId(int resId) {
+            SkinResFilter filter = mResFilter;
+            if (filter != null && !filter.mightContain(resId)) {
+                return 0;
+            }
+            try {
+                String resName = getTargetResourceEntryName(resId);
+                if (resName == null) {
+                    return 0;
+                }
                 String type = mAppContext.getResources().getResourceTypeName(resId);
                 return mResources.getIdentifier(resName, type, mSkinPkgName);
             } catch (Exception e) {
@@ -63,6 +280,28 @@ public class SkinCompatResources {
 
     private SkinCompatResources(Context context) {
         mAppContext = context.getApplicationContext();
+        mAppContext.registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                if (level >= TRIM_MEMORY_RUNNING_LOW) {
+                    clearDrawableCache();
+                }
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+                // 夜间模式, 屏幕方向, 语言, 屏幕密度等变化后, 带限定符的资源需要重新读取.
+                clearValueCaches();
+                clearDrawableCache();
+            }
+
+            @Override
+            public void onLowMemory() {
+                clearDrawableCache();
+            }
+        });
+        SkinState state = SkinPreference.getInstance(mAppContext).getSkinState();
+        mSkinConfig = new SkinConfig(state.getAffixesType(), state.getAffixesStr());
         reset();
     }
 
@@ -83,51 +322,429 @@ public class SkinCompatResources {
         return sInstanceMap.get(context.getApplicationContext());
     }
 
+    /**
+     * 清空加载中的皮肤包, 不影响正在使用的皮肤.
+     */
     public void reset() {
-        mSkinEntries.clear();
+        synchronized (mPendingEntries) {
+            mPendingEntries.clear();
+            discardPreparedSnapshot();
+        }
     }
 
+    /**
+     * 添加加载中的皮肤包, 调用{@link #publish(List)}后生效.
+     */
     public void addSkinEntry(SkinEntry entry) {
-        mSkinEntries.add(entry);
+        Capture capture = mCapture.get();
+        if (capture != null) {
+            entry.setSkinConfig(capture.config);
+            capture.entries.add(entry);
+            return;
+        }
+        entry.setSkinConfig(mSkinConfig);
+        synchronized (mPendingEntries) {
+            mPendingEntries.add(entry);
+        }
+    }
+
+    /**
+     * 之后在当前线程中添加的皮肤包暂不加入待生效列表, 直到调用{@link #endCapture()}.
+     *
+     * @param config 这些皮肤包使用的词缀配置.
+     */
+    public void beginCapture(SkinConfig config) {
+        mCapture.set(new Capture(config));
+    }
+
+    /**
+     * @return 调用{@link #beginCapture(SkinConfig)}后在当前线程中添加的皮肤包.
+     */
+    public List<SkinEntry> endCapture() {
+        Capture capture = mCapture.get();
+        mCapture.remove();
+        return capture == null ? Collections.<SkinEntry>emptyList() : capture.entries;
+    }
+
+    /**
+     * @return 皮肤包正在使用中返回true.
+     */
+    public boolean isPublished(SkinEntry entry) {
+        for (SkinEntry published : mSnapshot.entries) {
+            if (published == entry) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<SkinEntry> getPendingSkinEntries() {
+        synchronized (mPendingEntries) {
+            return new ArrayList<>(mPendingEntries);
+        }
+    }
+
+    /**
+     * 使用加载完成的皮肤包替换当前皮肤, 皮肤版本号加1.
+     *
+     * @param skinEntries 加载完成的皮肤包, 通过{@link #getPendingSkinEntries()}获取.
+     * @return 新的皮肤版本号.
+     */
+    public int publish(List<SkinEntry> skinEntries) {
+        synchronized (mPendingEntries) {
+            SkinEntry[] entries = skinEntries.toArray(new SkinEntry[skinEntries.size()]);
+            Snapshot old = mSnapshot;
+            Snapshot snapshot = mPreparedSnapshot;
+            mPreparedSnapshot = null;
+            if (snapshot == null || snapshot.generation != old.generation + 1
+                    || !Arrays.equals(snapshot.entries, entries)) {
+                if (snapshot != null && snapshot.drawables != null) {
+                    snapshot.drawables.evictAll();
+                }
+                snapshot = new Snapshot(entries, old.generation + 1, mDrawableCacheSize);
+            }
+            mSnapshot = snapshot;
+            if (old.drawables != null) {
+                old.drawables.evictAll();
+            }
+            return snapshot.generation;
+        }
+    }
+
+    /**
+     * 以当前的皮肤包重新生效, 皮肤版本号加1, 已缓存的资源重新读取.
+     *
+     * @return 新的皮肤版本号.
+     */
+    public int republish() {
+        synchronized (mPendingEntries) {
+            return publish(Arrays.asList(mSnapshot.entries));
+        }
+    }
+
+    /**
+     * 在当前线程中预先解析并解码下一个皮肤中的资源, 之后以相同的皮肤包调用{@link #publish(List)}时,
+     * 主线程换肤只需从缓存中取值并调用setter.
+     * <p>
+     * 不在主线程中调用. 期间有其他皮肤生效时预先解析的结果作废.
+     *
+     * @param skinEntries 加载完成的皮肤包, 通过{@link #getPendingSkinEntries()}获取.
+     * @param resIds      需要预先解析的应用资源ID.
+     * @return 成功解析的资源数.
+     */
+    public int prepare(List<SkinEntry> skinEntries, int[] resIds) {
+        SkinEntry[] entries = skinEntries.toArray(new SkinEntry[skinEntries.size()]);
+        Snapshot snapshot = new Snapshot(entries, mSnapshot.generation + 1, mDrawableCacheSize);
+        Resources appResources = mAppContext.getResources();
+        int count = 0;
+        for (int resId : resIds) {
+            try {
+                String type = appResources.getResourceTypeName(resId);
+                if ("color".equals(type)) {
+                    ColorStateList colorStateList = loadColorStateList(snapshot, resId);
+                    if (colorStateList != null) {
+                        synchronized (snapshot.colorStateLists) {
+                            snapshot.colorStateLists.put(resId, colorStateList);
+                        }
+                        synchronized (snapshot.colors) {
+                            snapshot.colors.put(resId, colorStateList.getDefaultColor());
+                        }
+                    }
+                } else if (("drawable".equals(type) || "mipmap".equals(type)) && snapshot.drawables != null) {
+                    loadDrawable(snapshot, resId);
+                } else {
+                    resolve(snapshot, resId);
+                }
+                count++;
+            } catch (Exception e) {
+                // 无法预先解析的资源在换肤时再读取.
+            }
+        }
+        synchronized (mPendingEntries) {
+            discardPreparedSnapshot();
+            mPreparedSnapshot = snapshot;
+        }
+        return count;
+    }
+
+    /**
+     * 丢弃以指定皮肤包预先解析的资源, 用于加载被取消时.
+     *
+     * @param skinEntries 调用{@link #prepare(List, int[])}时的皮肤包.
+     */
+    public void discardPrepared(List<SkinEntry> skinEntries) {
+        synchronized (mPendingEntries) {
+            if (mPreparedSnapshot != null && mPreparedSnapshot.entries.length == skinEntries.size()
+                    && Arrays.asList(mPreparedSnapshot.entries).equals(skinEntries)) {
+                discardPreparedSnapshot();
+            }
+        }
+    }
+
+    private void discardPreparedSnapshot() {
+        if (mPreparedSnapshot != null && mPreparedSnapshot.drawables != null) {
+            mPreparedSnapshot.drawables.evictAll();
+        }
+        mPreparedSnapshot = null;
+    }
+
+    /**
+     * 设置Drawable缓存大小, 下次换肤后生效.
+     *
+     * @param maxBytes 缓存的最大字节数, 小于等于0时不缓存.
+     */
+    public void setDrawableCacheSize(int maxBytes) {
+        mDrawableCacheSize = maxBytes;
+    }
+
+    public int getDrawableCacheSize() {
+        return mDrawableCacheSize;
+    }
+
+    public void clearDrawableCache() {
+        SkinDrawableCache drawables = mSnapshot.drawables;
+        if (drawables != null) {
+            drawables.evictAll();
+        }
+        synchronized (mPendingEntries) {
+            discardPreparedSnapshot();
+        }
+    }
+
+    /**
+     * 清空当前皮肤下已经读取过的颜色及ColorStateList.
+     */
+    public void clearValueCaches() {
+        Snapshot snapshot = mSnapshot;
+        synchronized (snapshot.colors) {
+            snapshot.colors.clear();
+        }
+        synchronized (snapshot.colorStateLists) {
+            snapshot.colorStateLists.clear();
+        }
+    }
+
+    /**
+     * @return 当前皮肤版本号, 每次换肤后递增.
+     */
+    public int getGeneration() {
+        return mSnapshot.generation;
+    }
+
+    /**
+     * 设置之后添加的皮肤包所使用的词缀配置.
+     *
+     * @param config 词缀配置.
+     */
+    public void setSkinConfig(SkinConfig config) {
+        mSkinConfig = config;
+    }
+
+    public SkinConfig getSkinConfig() {
+        return mSkinConfig;
     }
 
     public List<SkinEntry> getSkinEntries() {
-        return mSkinEntries;
+        return Collections.unmodifiableList(Arrays.asList(mSnapshot.entries));
+    }
+
+    /**
+     * 设置运行时覆盖的资源, 优先于所有皮肤包.
+     *
+     * @param resId    应用中的资源ID.
+     * @param override 颜色{@link Integer}, {@link ColorStateList}或{@link SkinCompatManager.SkinDrawableFactory}, 为null时移除.
+     */
+    public void setResourceOverride(int resId, Object override) {
+        synchronized (mOverrideLock) {
+            SparseArray<Object> overrides = mOverrides == null ? new SparseArray<Object>() : mOverrides.clone();
+            if (override == null) {
+                overrides.remove(resId);
+            } else {
+                overrides.put(resId, override);
+            }
+            mOverrides = overrides.size() == 0 ? null : overrides;
+        }
+    }
+
+    /**
+     * 移除所有运行时覆盖的资源.
+     *
+     * @return 被移除的资源ID.
+     */
+    public int[] clearResourceOverrides() {
+        synchronized (mOverrideLock) {
+            SparseArray<Object> overrides = mOverrides;
+            mOverrides = null;
+            if (overrides == null) {
+                return new int[0];
+            }
+            int[] resIds = new int[overrides.size()];
+            for (int i = 0; i < resIds.length; i++) {
+                resIds[i] = overrides.keyAt(i);
+            }
+            return resIds;
+        }
+    }
+
+    private Object getResourceOverride(int resId) {
+        SparseArray<Object> overrides = mOverrides;
+        return overrides == null ? null : overrides.get(resId);
+    }
+
+    /**
+     * 资源来源由所在的皮肤包及皮肤包中的资源ID组成, 两次查询来源相同时资源值相同, 可以不再重新设置.
+     *
+     * @param resId 应用中的资源ID.
+     * @return 资源来源, 运行时覆盖的资源返回{@link #UNKNOWN_SOURCE}.
+     */
+    public long getResourceSource(int resId) {
+        if (getResourceOverride(resId) != null) {
+            return UNKNOWN_SOURCE;
+        }
+        Snapshot snapshot = mSnapshot;
+        long resolved = resolve(snapshot, resId);
+        int layer = getResolvedLayer(resolved);
+        int sourceId = layer == APP_LAYER ? APP_SOURCE_ID : snapshot.entries[layer].mSourceId;
+        return ((long) sourceId << 32) | (getResolvedResId(resolved) & 0xffffffffL);
     }
 
     public int getColor(int resId) {
-        if (!mSkinEntries.isEmpty()) {
-            for (SkinEntry entry : mSkinEntries) {
-                int targetResId = entry.getTargetResId(resId);
-                if (targetResId != 0) {
-                    return entry.mResources.getColor(targetResId);
-                }
+        Object override = getResourceOverride(resId);
+        if (override instanceof Integer) {
+            return (Integer) override;
+        } else if (override instanceof ColorStateList) {
+            return ((ColorStateList) override).getDefaultColor();
+        }
+        Snapshot snapshot = mSnapshot;
+        synchronized (snapshot.colors) {
+            int index = snapshot.colors.indexOfKey(resId);
+            if (index >= 0) {
+                return snapshot.colors.valueAt(index);
             }
         }
+        int color = loadColor(snapshot, resId);
+        synchronized (snapshot.colors) {
+            snapshot.colors.put(resId, color);
+        }
+        return color;
+    }
+
+    private int loadColor(Snapshot snapshot, int resId) {
+        long resolved = resolve(snapshot, resId);
+        int layer = getResolvedLayer(resolved);
+        if (layer != APP_LAYER) {
+            return snapshot.entries[layer].mResources.getColor(getResolvedResId(resolved));
+        }
         return ContextCompat.getColor(mAppContext, resId);
     }
 
     public Drawable getDrawable(int resId) {
-        if (!mSkinEntries.isEmpty()) {
-            for (SkinEntry entry : mSkinEntries) {
-                int targetResId = entry.getTargetResId(resId);
-                if (targetResId != 0) {
-                    return entry.mResources.getDrawable(targetResId);
-                }
+        Object override = getResourceOverride(resId);
+        if (override instanceof SkinCompatManager.SkinDrawableFactory) {
+            return ((SkinCompatManager.SkinDrawableFactory) override).createDrawable(mAppContext, resId);
+        } else if (override instanceof Integer) {
+            return new ColorDrawable((Integer) override);
+        } else if (override instanceof ColorStateList) {
+            return new ColorDrawable(((ColorStateList) override).getDefaultColor());
+        }
+        Snapshot snapshot = mSnapshot;
+        if (snapshot.drawables != null) {
+            Drawable drawable = snapshot.drawables.getDrawable(resId);
+            if (drawable != null) {
+                return drawable;
             }
         }
-        return ContextCompat.getDrawable(mAppContext, resId);
+        return loadDrawable(snapshot, resId);
+    }
+
+    private Drawable loadDrawable(Snapshot snapshot, int resId) {
+        long resolved = resolve(snapshot, resId);
+        int layer = getResolvedLayer(resolved);
+        Resources resources;
+        Drawable drawable;
+        if (layer != APP_LAYER) {
+            resources = snapshot.entries[layer].mResources;
+            drawable = resources.getDrawable(getResolvedResId(resolved));
+        } else {
+            resources = mAppContext.getResources();
+            drawable = ContextCompat.getDrawable(mAppContext, resId);
+        }
+        if (snapshot.drawables != null) {
+            snapshot.drawables.putDrawable(resId, resources, drawable);
+        }
+        return drawable;
     }
 
     public ColorStateList getColorStateList(int resId) {
-        if (!mSkinEntries.isEmpty()) {
-            for (SkinEntry entry : mSkinEntries) {
-                int targetResId = entry.getTargetResId(resId);
-                if (targetResId != 0) {
-                    return entry.mResources.getColorStateList(targetResId);
-                }
+        Object override = getResourceOverride(resId);
+        if (override instanceof ColorStateList) {
+            return (ColorStateList) override;
+        } else if (override instanceof Integer) {
+            return ColorStateList.valueOf((Integer) override);
+        }
+        Snapshot snapshot = mSnapshot;
+        synchronized (snapshot.colorStateLists) {
+            ColorStateList colorStateList = snapshot.colorStateLists.get(resId);
+            if (colorStateList != null) {
+                return colorStateList;
             }
         }
+        ColorStateList colorStateList = loadColorStateList(snapshot, resId);
+        if (colorStateList != null) {
+            synchronized (snapshot.colorStateLists) {
+                snapshot.colorStateLists.put(resId, colorStateList);
+            }
+        }
+        return colorStateList;
+    }
+
+    private ColorStateList loadColorStateList(Snapshot snapshot, int resId) {
+        long resolved = resolve(snapshot, resId);
+        int layer = getResolvedLayer(resolved);
+        if (layer != APP_LAYER) {
+            return snapshot.entries[layer].mResources.getColorStateList(getResolvedResId(resolved));
+        }
         return ContextCompat.getColorStateList(mAppContext, resId);
     }
+
+    /**
+     * 查找资源所在的皮肤包, 结果在当前皮肤下缓存, 之后的查询与叠加的皮肤包数量无关.
+     *
+     * @return 高32位为皮肤包下标, 应用自身资源为{@link #APP_LAYER}; 低32位为皮肤包中的资源ID.
+     */
+    private long resolve(Snapshot snapshot, int resId) {
+        synchronized (snapshot.layers) {
+            int index = snapshot.layers.indexOfKey(resId);
+            if (index >= 0) {
+                return pack(snapshot.layers.valueAt(index), snapshot.targetResIds.get(resId));
+            }
+        }
+        int layer = APP_LAYER;
+        int targetResId = resId;
+        for (int i = 0; i < snapshot.entries.length; i++) {
+            int skinResId = snapshot.entries[i].getTargetResId(resId);
+            if (skinResId != 0) {
+                layer = i;
+                targetResId = skinResId;
+                break;
+            }
+        }
+        synchronized (snapshot.layers) {
+            snapshot.layers.put(resId, layer);
+            snapshot.targetResIds.put(resId, targetResId);
+        }
+        return pack(layer, targetResId);
+    }
+
+    private static long pack(int layer, int targetResId) {
+        return ((long) layer << 32) | (targetResId & 0xffffffffL);
+    }
+
+    private static int getResolvedLayer(long resolved) {
+        return (int) (resolved >> 32);
+    }
+
+    private static int getResolvedResId(long resolved) {
+        return (int) resolved;
+    }
 }
@@ -0,0 +1,48 @@
+package skin.support.content.res;
+
+import android.text.TextUtils;
+
+import skin.support.SkinCompatManager.SkinLoaderStrategy;
+
+/**
+ * 皮肤包加载时的词缀配置, 加载完成后不再改变.
+ */
+public final class SkinConfig {
+    public static final SkinConfig DEFAULT = new SkinConfig(SkinLoaderStrategy.NONE, "");
+
+    private final int mAffixesType;
+    private final String mAffixesStr;
+
+    public SkinConfig(int affixesType, String affixesStr) {
+        mAffixesType = affixesType;
+        mAffixesStr = affixesStr == null ? "" : affixesStr;
+    }
+
+    /**
+     * @return {@link SkinLoaderStrategy#NONE} {@link SkinLoaderStrategy#PREFIX} {@link SkinLoaderStrategy#SUFFIX}
+     */
+    public int getAffixesType() {
+        return mAffixesType;
+    }
+
+    public String getAffixesStr() {
+        return mAffixesStr;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SkinConfig)) {
+            return false;
+        }
+        SkinConfig that = (SkinConfig) o;
+        return mAffixesType == that.mAffixesType && TextUtils.equals(mAffixesStr, that.mAffixesStr);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * mAffixesType + mAffixesStr.hashCode();
+    }
+}
@@ -0,0 +1,75 @@
+package skin.support.content.res;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.util.LruCache;
+
+/**
+ * 按应用资源ID缓存皮肤包中Drawable的{@link Drawable.ConstantState}, 按估算的字节数进行LRU淘汰.
+ * <p>
+ * 同一资源返回的Drawable共享ConstantState, 与{@link Resources#getDrawable(int)}的行为一致,
+ * 修改Drawable状态前需要先调用{@link Drawable#mutate()}.
+ */
+class SkinDrawableCache extends LruCache<Integer, SkinDrawableCache.Entry> {
+    // 无法估算大小的Drawable按1KB计算.
+    private static final int DEFAULT_DRAWABLE_SIZE = 1024;
+
+    static final class Entry {
+        final Resources resources;
+        final Drawable.ConstantState state;
+        final int size;
+
+        Entry(Resources resources, Drawable.ConstantState state, int size) {
+            this.resources = resources;
+            this.state = state;
+            this.size = size;
+        }
+    }
+
+    SkinDrawableCache(int maxBytes) {
+        super(Math.max(maxBytes, 1));
+    }
+
+    Drawable getDrawable(int resId) {
+        Entry entry = get(resId);
+        return entry == null ? null : entry.state.newDrawable(entry.resources);
+    }
+
+    void putDrawable(int resId, Resources resources, Drawable drawable) {
+        if (drawable == null) {
+            return;
+        }
+        Drawable.ConstantState state = drawable.getConstantState();
+        // 仍依赖主题属性的Drawable不能脱离主题复用.
+        if (state == null || (Build.VERSION.SDK_INT >= 21 && state.canApplyTheme())) {
+            return;
+        }
+        int size = estimateSize(drawable);
+        if (size <= maxSize()) {
+            put(resId, new Entry(resources, state, size));
+        }
+    }
+
+    @Override
+    protected int sizeOf(Integer key, Entry value) {
+        return value.size;
+    }
+
+    private static int estimateSize(Drawable drawable) {
+        if (drawable instanceof BitmapDrawable) {
+            Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+            if (bitmap != null) {
+                return bitmap.getRowBytes() * bitmap.getHeight();
+            }
+        }
+        int width = drawable.getIntrinsicWidth();
+        int height = drawable.getIntrinsicHeight();
+        if (width > 0 && height > 0) {
+            return width * height * 4;
+        }
+        return DEFAULT_DRAWABLE_SIZE;
+    }
+}
@@ -0,0 +1,100 @@
+package skin.support.content.res;
+
+import android.content.res.Resources;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 记录应用中哪些资源在皮肤包中存在, 皮肤包中不存在的资源无需再查找.
+ */
+public class SkinResFilter {
+    // 下标为资源类型ID, 按资源条目ID标记皮肤包中是否存在相应资源.
+    private final BitSet[] mTypeBits;
+    private final int mResourceCount;
+    private final int mOverrideCount;
+
+    SkinResFilter(BitSet[] typeBits, int resourceCount, int overrideCount) {
+        mTypeBits = typeBits;
+        mResourceCount = resourceCount;
+        mOverrideCount = overrideCount;
+    }
+
+    /**
+     * @param resId 应用中的资源ID.
+     * @return 皮肤包中一定不存在相应资源时返回false.
+     */
+    public boolean mightContain(int resId) {
+        if ((resId >>> 24) != SkinResIdIndex.APP_PACKAGE_ID) {
+            return true;
+        }
+        BitSet bits = mTypeBits[(resId >>> 16) & 0xff];
+        return bits == null || bits.get(resId & 0xffff);
+    }
+
+    /**
+     * @return 应用资源总数.
+     */
+    public int getResourceCount() {
+        return mResourceCount;
+    }
+
+    /**
+     * @return 皮肤包中存在的应用资源数.
+     */
+    public int getOverrideCount() {
+        return mOverrideCount;
+    }
+
+    /**
+     * @return 皮肤包覆盖的应用资源比例.
+     */
+    public float getOverrideRatio() {
+        return mResourceCount == 0 ? 0 : (float) mOverrideCount / mResourceCount;
+    }
+
+    static SkinResFilter build(Resources appResources, SkinCompatResources.SkinEntry entry) {
+        Set<String> skinResNames = getResourceNames(entry.getResources());
+        if (skinResNames.isEmpty()) {
+            return null;
+        }
+        BitSet[] typeBits = new BitSet[SkinResIdIndex.MAX_TYPE_COUNT + 1];
+        int resourceCount = 0;
+        int overrideCount = 0;
+        for (int typeId = 1; typeId <= SkinResIdIndex.MAX_TYPE_COUNT; typeId++) {
+            String typeName = SkinResIdIndex.getTypeName(appResources, typeId);
+            if (typeName == null) {
+                break;
+            }
+            int count = SkinResIdIndex.getEntryCount(appResources, typeId);
+            BitSet bits = new BitSet(count);
+            for (int entryIndex = 0; entryIndex < count; entryIndex++) {
+                String resName = entry.getTargetResourceEntryName(SkinResIdIndex.makeResId(typeId, entryIndex));
+                if (resName != null && skinResNames.contains(typeName + "/" + resName)) {
+                    bits.set(entryIndex);
+                    overrideCount++;
+                }
+            }
+            resourceCount += count;
+            typeBits[typeId] = bits;
+        }
+        return new SkinResFilter(typeBits, resourceCount, overrideCount);
+    }
+
+    private static Set<String> getResourceNames(Resources resources) {
+        Set<String> names = new HashSet<>();
+        for (int typeId = 1; typeId <= SkinResIdIndex.MAX_TYPE_COUNT; typeId++) {
+            String typeName = SkinResIdIndex.getTypeName(resources, typeId);
+            if (typeName == null) {
+                break;
+            }
+            int count = SkinResIdIndex.getEntryCount(resources, typeId);
+            for (int entryIndex = 0; entryIndex < count; entryIndex++) {
+                names.add(typeName + "/"
+                        + resources.getResourceEntryName(SkinResIdIndex.makeResId(typeId, entryIndex)));
+            }
+        }
+        return names;
+    }
+}
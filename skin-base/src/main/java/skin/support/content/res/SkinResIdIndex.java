@@ -0,0 +1,270 @@
+package skin.support.content.res;
+
+import android.content.res.Resources;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import skin.support.utils.SkinFileUtils;
+
+/**
+ * 应用资源ID到皮肤包资源ID的映射表, 按资源类型分表, 查询时只需数组下标访问.
+ */
+public class SkinResIdIndex {
+    public static final int NOT_INDEXED = -1;
+    static final int APP_PACKAGE_ID = 0x7f;
+    static final int MAX_TYPE_COUNT = 0xff;
+    private static final String[] INDEX_TYPES = {"color", "drawable", "mipmap"};
+    private static final int FILE_MAGIC = 0x534b4958;
+    private static final int FILE_VERSION = 1;
+    private static final String FILE_SUFFIX = ".idx";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 映射表的有效性依赖于应用版本, 皮肤包文件内容及词缀配置, 任意一项变化都需要重新建立.
+     */
+    static final class Key {
+        final int versionCode;
+        final long lastUpdateTime;
+        final long skinChecksum;
+        final String skinName;
+        final int strategyType;
+        final int affixesType;
+        final String affixesStr;
+
+        Key(int versionCode, long lastUpdateTime, long skinChecksum, String skinName,
+            int strategyType, SkinConfig config) {
+            this.versionCode = versionCode;
+            this.lastUpdateTime = lastUpdateTime;
+            this.skinChecksum = skinChecksum;
+            this.skinName = skinName == null ? "" : skinName;
+            this.strategyType = strategyType;
+            this.affixesType = config.getAffixesType();
+            this.affixesStr = config.getAffixesStr();
+        }
+
+        String getFileName() {
+            String id = skinName + "|" + strategyType + "|" + affixesType + "|" + affixesStr;
+            return "resid_" + Integer.toHexString(id.hashCode()) + FILE_SUFFIX;
+        }
+    }
+
+    // 下标为资源类型ID, 值为该类型下按资源条目ID排列的皮肤包资源ID.
+    private final int[][] mTables;
+
+    SkinResIdIndex(int[][] tables) {
+        mTables = tables;
+    }
+
+    /**
+     * @param resId 应用中的资源ID.
+     * @return 皮肤包中相应的资源ID, 不存在则返回0; 资源不在映射表范围内返回{@link #NOT_INDEXED}.
+     */
+    public int get(int resId) {
+        if ((resId >>> 24) != APP_PACKAGE_ID) {
+            return NOT_INDEXED;
+        }
+        int[] table = mTables[(resId >>> 16) & 0xff];
+        int entryIndex = resId & 0xffff;
+        if (table == null || entryIndex >= table.length) {
+            return NOT_INDEXED;
+        }
+        return table[entryIndex];
+    }
+
+    /**
+     * 从磁盘读取映射表, 文件不存在, 已过期或已损坏时返回null.
+     */
+    static SkinResIdIndex read(File dir, Key key) {
+        File file = new File(dir, key.getFileName());
+        if (!file.isFile()) {
+            return null;
+        }
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            if (buffer.getInt() != FILE_MAGIC
+                    || buffer.getInt() != FILE_VERSION
+                    || buffer.getInt() != key.versionCode
+                    || buffer.getLong() != key.lastUpdateTime
+                    || buffer.getLong() != key.skinChecksum
+                    || !key.skinName.equals(readString(buffer))
+                    || buffer.getInt() != key.strategyType
+                    || buffer.getInt() != key.affixesType
+                    || !key.affixesStr.equals(readString(buffer))) {
+                file.delete();
+                return null;
+            }
+            int[][] tables = new int[MAX_TYPE_COUNT + 1][];
+            int hash = 0;
+            int tableCount = buffer.getInt();
+            for (int i = 0; i < tableCount; i++) {
+                int typeId = buffer.getInt();
+                int length = buffer.getInt();
+                if (length < 0 || length > 0x10000 || length * 4 > buffer.remaining()) {
+                    file.delete();
+                    return null;
+                }
+                int[] table = new int[length];
+                buffer.asIntBuffer().get(table);
+                buffer.position(buffer.position() + table.length * 4);
+                tables[typeId] = table;
+                hash = hashTable(hash, typeId, table);
+            }
+            if (buffer.getInt() != hash || buffer.hasRemaining()) {
+                file.delete();
+                return null;
+            }
+            return new SkinResIdIndex(tables);
+        } catch (Exception e) {
+            // 文件损坏, 重新建立映射表.
+            file.delete();
+            return null;
+        } finally {
+            SkinFileUtils.closeQuietly(raf);
+        }
+    }
+
+    /**
+     * 将映射表写入磁盘, 先写临时文件再重命名, 避免进程中断留下不完整的文件.
+     */
+    void write(File dir, Key key) {
+        File file = new File(dir, key.getFileName());
+        File tmpFile = new File(dir, key.getFileName() + TMP_SUFFIX);
+        DataOutputStream os = null;
+        try {
+            FileOutputStream fos = new FileOutputStream(tmpFile);
+            os = new DataOutputStream(new BufferedOutputStream(fos));
+            os.writeInt(FILE_MAGIC);
+            os.writeInt(FILE_VERSION);
+            os.writeInt(key.versionCode);
+            os.writeLong(key.lastUpdateTime);
+            os.writeLong(key.skinChecksum);
+            writeString(os, key.skinName);
+            os.writeInt(key.strategyType);
+            os.writeInt(key.affixesType);
+            writeString(os, key.affixesStr);
+            int tableCount = 0;
+            for (int[] table : mTables) {
+                if (table != null) {
+                    tableCount++;
+                }
+            }
+            os.writeInt(tableCount);
+            int hash = 0;
+            for (int typeId = 0; typeId < mTables.length; typeId++) {
+                int[] table = mTables[typeId];
+                if (table == null) {
+                    continue;
+                }
+                os.writeInt(typeId);
+                os.writeInt(table.length);
+                for (int targetResId : table) {
+                    os.writeInt(targetResId);
+                }
+                hash = hashTable(hash, typeId, table);
+            }
+            os.writeInt(hash);
+            os.flush();
+            fos.getFD().sync();
+            os.close();
+            os = null;
+            if (!tmpFile.renameTo(file)) {
+                tmpFile.delete();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            SkinFileUtils.closeQuietly(os);
+            tmpFile.delete();
+        }
+    }
+
+    private static int hashTable(int hash, int typeId, int[] table) {
+        hash = 31 * hash + typeId;
+        for (int targetResId : table) {
+            hash = 31 * hash + targetResId;
+        }
+        return hash;
+    }
+
+    private static void writeString(DataOutputStream os, String str) throws IOException {
+        byte[] bytes = str.getBytes(UTF_8);
+        os.writeInt(bytes.length);
+        os.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalStateException("Invalid string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    static int makeResId(int typeId, int entryIndex) {
+        return (APP_PACKAGE_ID << 24) | (typeId << 16) | entryIndex;
+    }
+
+    static SkinResIdIndex build(Resources appResources, SkinCompatResources.SkinEntry entry) {
+        int[][] tables = new int[MAX_TYPE_COUNT + 1][];
+        // aapt按类型和条目顺序连续分配资源ID, 遇到不存在的ID即可结束遍历.
+        for (int typeId = 1; typeId <= MAX_TYPE_COUNT; typeId++) {
+            String typeName = getTypeName(appResources, typeId);
+            if (typeName == null) {
+                break;
+            }
+            if (!isIndexType(typeName)) {
+                continue;
+            }
+            int count = getEntryCount(appResources, typeId);
+            int[] table = new int[count];
+            for (int entryIndex = 0; entryIndex < count; entryIndex++) {
+                table[entryIndex] = entry.findTargetResId(makeResId(typeId, entryIndex));
+            }
+            tables[typeId] = table;
+        }
+        return new SkinResIdIndex(tables);
+    }
+
+    static String getTypeName(Resources resources, int typeId) {
+        try {
+            return resources.getResourceTypeName(makeResId(typeId, 0));
+        } catch (Resources.NotFoundException e) {
+            return null;
+        }
+    }
+
+    static int getEntryCount(Resources resources, int typeId) {
+        int count = 0;
+        try {
+            while (count <= 0xffff) {
+                resources.getResourceEntryName(makeResId(typeId, count));
+                count++;
+            }
+        } catch (Resources.NotFoundException e) {
+            // 已到达该类型的最后一个资源.
+        }
+        return count;
+    }
+
+    private static boolean isIndexType(String typeName) {
+        for (String type : INDEX_TYPES) {
+            if (type.equals(typeName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
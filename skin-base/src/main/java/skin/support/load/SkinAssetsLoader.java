@@ -1,21 +1,37 @@
 package skin.support.load;
 
 import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.util.zip.CRC32;
 
 import skin.support.SkinCompatManager;
 import skin.support.utils.SkinConstants;
 import skin.support.utils.SkinFileUtils;
 
 public class SkinAssetsLoader extends SkinSDCardLoader {
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int STAMP_MAGIC = 0x534b4153;
+    private static final String STAMP_SUFFIX = ".stamp";
+    private static final String TMP_SUFFIX = ".tmp";
+
     @Override
     protected String getSkinPath(Context context, String skinName) {
-        return copySkinFromAssets(context, skinName);
+        SkinCompatManager manager = SkinCompatManager.getInstance(context);
+        long start = manager.startLoadPhase();
+        String skinPath = copySkinFromAssets(context, skinName);
+        manager.reportLoadPhase(SkinCompatManager.SkinLoadMetricsListener.PHASE_ASSET_COPY, skinName, start);
+        return skinPath;
     }
 
     @Override
@@ -23,22 +39,127 @@ public class SkinAssetsLoader extends SkinSDCardLoader {
         return SkinCompatManager.SKIN_LOADER_STRATEGY_ASSETS;
     }
 
+    /**
+     * assets中的皮肤包只会随应用更新而变化, 已拷贝的皮肤包与记录一致时不再重复拷贝.
+     */
     private String copySkinFromAssets(Context context, String name) {
-        String skinPath = new File(SkinFileUtils.getSkinDir(context), name).getAbsolutePath();
+        File skinDir = new File(SkinFileUtils.getSkinDir(context));
+        File skinFile = new File(skinDir, name);
+        File stampFile = new File(skinDir, name + STAMP_SUFFIX);
+        PackageInfo info;
         try {
-            InputStream is = context.getAssets().open(
-                    SkinConstants.SKIN_DEPLOY_PATH + File.separator + name);
-            OutputStream os = new FileOutputStream(skinPath);
+            info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+        } catch (PackageManager.NameNotFoundException e) {
+            info = null;
+        }
+        if (info != null && isSkinUpToDate(skinFile, stampFile, info)) {
+            return skinFile.getAbsolutePath();
+        }
+        stampFile.delete();
+        File tmpFile = null;
+        InputStream is = null;
+        FileOutputStream fos = null;
+        try {
+            is = context.getAssets().open(SkinConstants.SKIN_DEPLOY_PATH + File.separator + name);
+            tmpFile = createTempFile(skinDir, name);
+            fos = new FileOutputStream(tmpFile);
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
             int byteCount;
-            byte[] bytes = new byte[1024];
-            while ((byteCount = is.read(bytes)) != -1) {
-                os.write(bytes, 0, byteCount);
+            while ((byteCount = is.read(buffer)) != -1) {
+                fos.write(buffer, 0, byteCount);
+                crc.update(buffer, 0, byteCount);
+            }
+            fos.getFD().sync();
+            fos.close();
+            fos = null;
+            // 先写临时文件再重命名, 避免进程中断留下不完整的皮肤包.
+            if (!tmpFile.renameTo(skinFile)) {
+                tmpFile.delete();
+                return skinFile.getAbsolutePath();
+            }
+            long checksum = crc.getValue();
+            SkinFileUtils.putFileChecksum(skinFile.getAbsolutePath(),
+                    skinFile.length(), skinFile.lastModified(), checksum);
+            if (info != null) {
+                writeStamp(stampFile, info, skinFile, checksum);
             }
+        } catch (IOException e) {
+            e.printStackTrace();
+            SkinFileUtils.closeQuietly(fos);
+            fos = null;
+            if (tmpFile != null) {
+                tmpFile.delete();
+            }
+        } finally {
+            SkinFileUtils.closeQuietly(is);
+            SkinFileUtils.closeQuietly(fos);
+        }
+        return skinFile.getAbsolutePath();
+    }
+
+    /**
+     * 每次拷贝使用不同的临时文件, 多个线程同时拷贝同一皮肤包时不会互相覆盖.
+     */
+    private static File createTempFile(File dir, String name) throws IOException {
+        // 前缀至少需要3个字符.
+        return File.createTempFile(name.length() < 3 ? name + "___" : name, TMP_SUFFIX, dir);
+    }
+
+    private static boolean isSkinUpToDate(File skinFile, File stampFile, PackageInfo info) {
+        if (!skinFile.isFile() || !stampFile.isFile()) {
+            return false;
+        }
+        DataInputStream is = null;
+        try {
+            is = new DataInputStream(new BufferedInputStream(new FileInputStream(stampFile)));
+            if (is.readInt() != STAMP_MAGIC
+                    || is.readInt() != info.versionCode
+                    || is.readLong() != info.lastUpdateTime) {
+                return false;
+            }
+            long length = is.readLong();
+            long lastModified = is.readLong();
+            long checksum = is.readLong();
+            if (length != skinFile.length() || lastModified != skinFile.lastModified()) {
+                return false;
+            }
+            // 记录的校验值即为当前文件的校验值, 建立资源ID映射表时无需再读取整个文件.
+            SkinFileUtils.putFileChecksum(skinFile.getAbsolutePath(), length, lastModified, checksum);
+            return true;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            SkinFileUtils.closeQuietly(is);
+        }
+    }
+
+    private static void writeStamp(File stampFile, PackageInfo info, File skinFile, long checksum) {
+        File tmpFile = null;
+        DataOutputStream os = null;
+        try {
+            tmpFile = createTempFile(stampFile.getParentFile(), stampFile.getName());
+            FileOutputStream fos = new FileOutputStream(tmpFile);
+            os = new DataOutputStream(new BufferedOutputStream(fos));
+            os.writeInt(STAMP_MAGIC);
+            os.writeInt(info.versionCode);
+            os.writeLong(info.lastUpdateTime);
+            os.writeLong(skinFile.length());
+            os.writeLong(skinFile.lastModified());
+            os.writeLong(checksum);
+            os.flush();
+            fos.getFD().sync();
             os.close();
-            is.close();
+            os = null;
+            if (!tmpFile.renameTo(stampFile)) {
+                tmpFile.delete();
+            }
         } catch (IOException e) {
             e.printStackTrace();
+            SkinFileUtils.closeQuietly(os);
+            if (tmpFile != null) {
+                tmpFile.delete();
+            }
         }
-        return skinPath;
     }
 }
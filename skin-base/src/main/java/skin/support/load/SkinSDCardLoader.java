@@ -5,6 +5,7 @@ import android.content.res.Resources;
 import android.text.TextUtils;
 
 import skin.support.SkinCompatManager;
+import skin.support.SkinCompatManager.SkinLoadMetricsListener;
 import skin.support.SkinCompatManager.SkinLoaderStrategy;
 import skin.support.content.res.SkinCompatResources;
 import skin.support.utils.SkinFileUtils;
@@ -14,16 +15,23 @@ public abstract class SkinSDCardLoader implements SkinLoaderStrategy {
     public String loadSkinInBackground(Context context, String skinName) {
         String skinPkgPath = getSkinPath(context, skinName);
         if (SkinFileUtils.isFileExists(skinPkgPath)) {
-            String pkgName = SkinCompatManager.getInstance(context).getSkinPackageName(skinPkgPath);
-            Resources resources = SkinCompatManager.getInstance(context).getSkinResources(skinPkgPath);
+            SkinCompatManager manager = SkinCompatManager.getInstance(context);
+            long start = manager.startLoadPhase();
+            String pkgName = manager.getSkinPackageName(skinPkgPath);
+            manager.reportLoadPhase(SkinLoadMetricsListener.PHASE_PACKAGE_PARSE, skinName, start);
+            start = manager.startLoadPhase();
+            Resources resources = manager.getSkinResources(skinPkgPath);
+            manager.reportLoadPhase(SkinLoadMetricsListener.PHASE_RESOURCES_CREATE, skinName, start);
             if (resources != null && !TextUtils.isEmpty(pkgName)) {
-                SkinCompatResources.getInstance(context).addSkinEntry(
-                        new SkinCompatResources.SkinEntry(
-                                context.getApplicationContext(),
-                                resources,
-                                pkgName,
-                                skinName,
-                                this));
+                SkinCompatResources.SkinEntry entry = new SkinCompatResources.SkinEntry(
+                        context.getApplicationContext(),
+                        resources,
+                        pkgName,
+                        skinName,
+                        skinPkgPath,
+                        this);
+                entry.setOwnsAssets(true);
+                SkinCompatResources.getInstance(context).addSkinEntry(entry);
                 return skinName;
             }
         }
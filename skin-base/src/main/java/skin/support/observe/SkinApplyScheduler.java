@@ -0,0 +1,103 @@
+package skin.support.observe;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+/**
+ * 按每帧的时间预算分片通知观察者换肤, 在主线程中使用.
+ */
+class SkinApplyScheduler implements Runnable {
+    private final SkinObservable mObservable;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private Object mFrameCallback;
+    private SkinObserver[] mObservers;
+    private Object mArg;
+    private long mFrameBudgetNanos;
+    private Runnable mOnComplete;
+    private Runnable mOnCancel;
+    private int mIndex;
+
+    SkinApplyScheduler(SkinObservable observable) {
+        mObservable = observable;
+    }
+
+    /**
+     * 从最后一个观察者开始通知, 先执行第一片, 剩余部分在之后的帧中继续.
+     * 上一次通知尚未完成时直接结束并回调其onCancel, 由本次通知覆盖.
+     */
+    void schedule(SkinObserver[] observers, Object arg, long frameBudgetNanos,
+                  Runnable onComplete, Runnable onCancel) {
+        Runnable previous = mObservers != null ? mOnCancel : null;
+        cancelFrame();
+        mObservers = observers;
+        mArg = arg;
+        mFrameBudgetNanos = frameBudgetNanos;
+        mOnComplete = onComplete;
+        mOnCancel = onCancel;
+        mIndex = observers.length - 1;
+        if (previous != null) {
+            previous.run();
+        }
+        run();
+    }
+
+    @Override
+    public void run() {
+        long deadline = System.nanoTime() + mFrameBudgetNanos;
+        while (mIndex >= 0) {
+            if (mObservable.updateObserver(mObservers[mIndex], mArg, deadline)) {
+                mIndex--;
+            }
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+        if (mIndex >= 0) {
+            postFrame();
+            return;
+        }
+        Runnable onComplete = mOnComplete;
+        mObservers = null;
+        mArg = null;
+        mOnComplete = null;
+        mOnCancel = null;
+        if (onComplete != null) {
+            onComplete.run();
+        }
+    }
+
+    private void postFrame() {
+        if (Build.VERSION.SDK_INT >= 16) {
+            if (mFrameCallback == null) {
+                mFrameCallback = new FrameCallback(this);
+            }
+            Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+        } else {
+            mHandler.post(this);
+        }
+    }
+
+    private void cancelFrame() {
+        if (mFrameCallback != null) {
+            Choreographer.getInstance().removeFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+        }
+        mHandler.removeCallbacks(this);
+    }
+
+    @TargetApi(16)
+    private static class FrameCallback implements Choreographer.FrameCallback {
+        private final Runnable mRunnable;
+
+        FrameCallback(Runnable runnable) {
+            mRunnable = runnable;
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mRunnable.run();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package skin.support.observe;
+
+/**
+ * 支持分帧换肤的观察者, 每次调用只处理到截止时间为止, 未完成的部分在下一帧继续.
+ */
+public interface SkinIncrementalObserver extends SkinObserver {
+    /**
+     * @param deadlineNanos 本次调用的截止时间, 与{@link System#nanoTime()}比较.
+     * @return 换肤完成返回true, 否则返回false, 在下一帧继续调用.
+     */
+    boolean updateSkin(SkinObservable observable, Object o, long deadlineNanos);
+}
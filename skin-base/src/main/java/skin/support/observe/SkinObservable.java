@@ -4,6 +4,7 @@ import java.util.ArrayList;
 
 public class SkinObservable {
     private final ArrayList<SkinObserver> observers;
+    private SkinApplyScheduler mApplyScheduler;
 
     public SkinObservable() {
         observers = new ArrayList<>();
@@ -33,7 +34,54 @@ public class SkinObservable {
         }
 
         for (int i = arrLocal.length-1; i>=0; i--)
-            arrLocal[i].updateSkin(this, arg);
+            updateObserver(arrLocal[i], arg);
+    }
+
+    protected void updateObserver(SkinObserver observer, Object arg) {
+        observer.updateSkin(this, arg);
+    }
+
+    /**
+     * 按每帧的时间预算分片通知观察者换肤, 在主线程中调用.
+     *
+     * @param arg              通知参数.
+     * @param frameBudgetNanos 每帧用于换肤的时间, 单位纳秒.
+     * @param onComplete       所有观察者换肤完成后调用, 可以为null.
+     */
+    public void notifyUpdateSkin(Object arg, long frameBudgetNanos, Runnable onComplete) {
+        notifyUpdateSkin(arg, frameBudgetNanos, onComplete, null);
+    }
+
+    /**
+     * 按每帧的时间预算分片通知观察者换肤, 在主线程中调用.
+     *
+     * @param arg              通知参数.
+     * @param frameBudgetNanos 每帧用于换肤的时间, 单位纳秒.
+     * @param onComplete       所有观察者换肤完成后调用, 可以为null.
+     * @param onCancel         尚未完成时被新的通知取代后调用, 此时不再调用onComplete, 可以为null.
+     */
+    public void notifyUpdateSkin(Object arg, long frameBudgetNanos, Runnable onComplete, Runnable onCancel) {
+        SkinObserver[] arrLocal;
+
+        synchronized (this) {
+            arrLocal = observers.toArray(new SkinObserver[observers.size()]);
+        }
+
+        if (mApplyScheduler == null) {
+            mApplyScheduler = new SkinApplyScheduler(this);
+        }
+        mApplyScheduler.schedule(arrLocal, arg, frameBudgetNanos, onComplete, onCancel);
+    }
+
+    /**
+     * @return 观察者换肤完成返回true.
+     */
+    protected boolean updateObserver(SkinObserver observer, Object arg, long deadlineNanos) {
+        if (observer instanceof SkinIncrementalObserver) {
+            return ((SkinIncrementalObserver) observer).updateSkin(this, arg, deadlineNanos);
+        }
+        updateObserver(observer, arg);
+        return true;
     }
 
     public synchronized void deleteObservers() {
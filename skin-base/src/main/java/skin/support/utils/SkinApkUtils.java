@@ -0,0 +1,126 @@
+package skin.support.utils;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+public class SkinApkUtils {
+    private static final String RESOURCES_TABLE = "resources.arsc";
+    private static final int RES_TABLE_TYPE = 0x0002;
+    private static final int RES_TABLE_PACKAGE_TYPE = 0x0200;
+    private static final int CHUNK_HEADER_SIZE = 8;
+    // ResTable_package: id(uint32) + name(char16[128]).
+    private static final int PACKAGE_NAME_LENGTH = 128;
+    private static final int PACKAGE_HEADER_READ_SIZE = 4 + PACKAGE_NAME_LENGTH * 2;
+    private static final Map<String, String> sPackageNameCache = new HashMap<>();
+
+    /**
+     * 从皮肤包的resources.arsc中读取包名, 只读取资源表的文件头部, 无需解析整个AndroidManifest.
+     * 文件大小和修改时间不变时直接返回缓存的结果.
+     *
+     * @param path 皮肤包路径.
+     * @return 包名, 读取失败时返回null.
+     */
+    public static String getPackageName(String path) {
+        if (!SkinFileUtils.isFileExists(path)) {
+            return null;
+        }
+        File file = new File(path);
+        String cacheKey = path + "|" + file.length() + "|" + file.lastModified();
+        synchronized (sPackageNameCache) {
+            String cached = sPackageNameCache.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        String packageName = readPackageName(file);
+        if (packageName != null) {
+            synchronized (sPackageNameCache) {
+                sPackageNameCache.put(cacheKey, packageName);
+            }
+        }
+        return packageName;
+    }
+
+    private static String readPackageName(File file) {
+        ZipFile zipFile = null;
+        InputStream is = null;
+        try {
+            zipFile = new ZipFile(file);
+            ZipEntry entry = zipFile.getEntry(RESOURCES_TABLE);
+            if (entry == null) {
+                return null;
+            }
+            is = zipFile.getInputStream(entry);
+            DataInputStream dis = new DataInputStream(is);
+            ByteBuffer header = readChunk(dis, CHUNK_HEADER_SIZE);
+            int type = header.getShort() & 0xffff;
+            int headerSize = header.getShort() & 0xffff;
+            if (type != RES_TABLE_TYPE || headerSize < CHUNK_HEADER_SIZE) {
+                return null;
+            }
+            skipFully(dis, headerSize - CHUNK_HEADER_SIZE);
+            // 资源表头部之后依次为全局字符串池及各个包, 跳过字符串池找到第一个包.
+            while (true) {
+                ByteBuffer chunk = readChunk(dis, CHUNK_HEADER_SIZE);
+                int chunkType = chunk.getShort() & 0xffff;
+                chunk.getShort();
+                int chunkSize = chunk.getInt();
+                if (chunkSize < CHUNK_HEADER_SIZE) {
+                    return null;
+                }
+                if (chunkType == RES_TABLE_PACKAGE_TYPE) {
+                    ByteBuffer pkg = readChunk(dis, PACKAGE_HEADER_READ_SIZE);
+                    pkg.getInt();
+                    StringBuilder name = new StringBuilder();
+                    for (int i = 0; i < PACKAGE_NAME_LENGTH; i++) {
+                        char c = pkg.getChar();
+                        if (c == 0) {
+                            break;
+                        }
+                        name.append(c);
+                    }
+                    return name.length() == 0 ? null : name.toString();
+                }
+                skipFully(dis, chunkSize - CHUNK_HEADER_SIZE);
+            }
+        } catch (Exception e) {
+            // 资源表格式不符合预期, 由调用方使用PackageManager解析.
+            return null;
+        } finally {
+            SkinFileUtils.closeQuietly(is);
+            // ZipFile在API 19之前未实现Closeable.
+            if (zipFile != null) {
+                try {
+                    zipFile.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer readChunk(DataInputStream is, int size) throws IOException {
+        byte[] bytes = new byte[size];
+        is.readFully(bytes);
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void skipFully(DataInputStream is, int count) throws IOException {
+        int remaining = count;
+        while (remaining > 0) {
+            int skipped = is.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new IOException("Unexpected end of " + RESOURCES_TABLE);
+            }
+            remaining -= skipped;
+        }
+    }
+}
@@ -4,9 +4,19 @@ import android.content.Context;
 import android.os.Environment;
 import android.text.TextUtils;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
 
 public class SkinFileUtils {
+    private static final int CHECKSUM_BUFFER_SIZE = 64 * 1024;
+    private static final Map<String, long[]> sChecksumCache = new HashMap<>();
+
     public static String getSkinDir(Context context) {
         File skinDir = new File(getCacheDir(context), SkinConstants.SKIN_DEPLOY_PATH);
         if (!skinDir.exists()) {
@@ -30,4 +40,69 @@ public class SkinFileUtils {
     public static boolean isFileExists(String path) {
         return !TextUtils.isEmpty(path) && new File(path).exists();
     }
+
+    /**
+     * 计算文件的CRC32校验值, 文件大小和修改时间不变时直接返回缓存的结果.
+     *
+     * @param path 文件路径.
+     * @return 校验值, 文件不存在或读取失败时返回0.
+     */
+    public static long getFileChecksum(String path) {
+        if (!isFileExists(path)) {
+            return 0;
+        }
+        File file = new File(path);
+        long length = file.length();
+        long lastModified = file.lastModified();
+        synchronized (sChecksumCache) {
+            long[] cached = sChecksumCache.get(path);
+            if (cached != null && cached[0] == length && cached[1] == lastModified) {
+                return cached[2];
+            }
+        }
+        InputStream is = null;
+        try {
+            is = new FileInputStream(file);
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[CHECKSUM_BUFFER_SIZE];
+            int byteCount;
+            while ((byteCount = is.read(buffer)) != -1) {
+                crc.update(buffer, 0, byteCount);
+            }
+            long checksum = crc.getValue();
+            synchronized (sChecksumCache) {
+                sChecksumCache.put(path, new long[]{length, lastModified, checksum});
+            }
+            return checksum;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 0;
+        } finally {
+            closeQuietly(is);
+        }
+    }
+
+    /**
+     * 记录已知的文件校验值, 如拷贝文件时已计算过的校验值.
+     *
+     * @param path         文件路径.
+     * @param length       文件大小.
+     * @param lastModified 文件修改时间.
+     * @param checksum     CRC32校验值.
+     */
+    public static void putFileChecksum(String path, long length, long lastModified, long checksum) {
+        synchronized (sChecksumCache) {
+            sChecksumCache.put(path, new long[]{length, lastModified, checksum});
+        }
+    }
+
+    public static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
 }
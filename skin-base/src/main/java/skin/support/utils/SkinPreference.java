@@ -2,6 +2,7 @@ package skin.support.utils;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.text.TextUtils;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -15,10 +16,18 @@ public class SkinPreference {
     private static final String KEY_SKIN_STRATEGY = "skin-strategy";
     private static final String KEY_AFFIXES_TYPE = "skin-affixes-type";
     private static final String KEY_AFFIXES_STR = "skin-affixes-str";
+    private static final String KEY_SKIN_STATE = "skin-state";
+    private static final String SKIN_SEPARATOR = "&";
     private static final Map<Context, SkinPreference> sInstanceMap = new HashMap<>();
     private final Context mApp;
     private final SharedPreferences mPref;
     private final SharedPreferences.Editor mEditor;
+    private volatile SkinState mSkinState;
+    // 兼容旧接口, 调用commitEditor()时一次写入, 为null的项保持当前记录的值.
+    private String mPendingSkinName;
+    private String mPendingSkinStrategy;
+    private Integer mPendingAffixesType;
+    private String mPendingAffixesStr;
 
     public static void init(Context context) {
         SkinPreference instance = sInstanceMap.get(context.getApplicationContext());
@@ -43,43 +52,166 @@ public class SkinPreference {
         mEditor = mPref.edit();
     }
 
-    public SkinPreference setSkinName(String skinName) {
-        mEditor.putString(KEY_SKIN_NAME, skinName);
-        return this;
+    /**
+     * @return 记录的皮肤包状态, 只在第一次调用时解析.
+     */
+    public SkinState getSkinState() {
+        SkinState state = mSkinState;
+        if (state == null) {
+            synchronized (this) {
+                state = mSkinState;
+                if (state == null) {
+                    state = readSkinState();
+                    mSkinState = state;
+                }
+            }
+        }
+        return state;
     }
 
-    public String getSkinName() {
-        return mPref.getString(KEY_SKIN_NAME, "");
+    /**
+     * 记录皮肤包状态, 一次写入, 不会出现部分写入的状态.
+     *
+     * @param state 皮肤包状态.
+     */
+    public void setSkinState(SkinState state) {
+        synchronized (this) {
+            mSkinState = state;
+            mEditor.putString(KEY_SKIN_STATE, state.encode())
+                    .remove(KEY_SKIN_NAME)
+                    .remove(KEY_SKIN_STRATEGY)
+                    .remove(KEY_AFFIXES_TYPE)
+                    .remove(KEY_AFFIXES_STR)
+                    .apply();
+        }
     }
 
-    public SkinPreference setSkinStrategy(String strategy) {
-        mEditor.putString(KEY_SKIN_STRATEGY, strategy);
-        return this;
+    private SkinState readSkinState() {
+        String record = mPref.getString(KEY_SKIN_STATE, null);
+        if (record != null) {
+            SkinState state = SkinState.decode(record);
+            return state == null ? SkinState.DEFAULT : state;
+        }
+        if (!mPref.contains(KEY_SKIN_NAME)) {
+            return SkinState.DEFAULT;
+        }
+        // 迁移旧版本分别保存的各项.
+        SkinState state = parseLegacyState(mPref.getString(KEY_SKIN_NAME, ""),
+                mPref.getString(KEY_SKIN_STRATEGY, ""),
+                mPref.getInt(KEY_AFFIXES_TYPE, SkinCompatManager.SkinLoaderStrategy.NONE),
+                mPref.getString(KEY_AFFIXES_STR, ""));
+        setSkinState(state);
+        return state;
+    }
+
+    private static SkinState parseLegacyState(String skinName, String strategy, int affixesType, String affixesStr) {
+        if (TextUtils.isEmpty(skinName) || TextUtils.isEmpty(strategy)) {
+            return SkinState.DEFAULT;
+        }
+        String[] nameArray = skinName.split(SKIN_SEPARATOR);
+        String[] strategyArray = strategy.split(SKIN_SEPARATOR);
+        if (nameArray.length != strategyArray.length) {
+            return SkinState.DEFAULT;
+        }
+        try {
+            SkinState.Layer[] layers = new SkinState.Layer[nameArray.length];
+            for (int i = 0; i < nameArray.length; i++) {
+                layers[i] = new SkinState.Layer(nameArray[i], Integer.parseInt(strategyArray[i]), "", 0, 0, 0);
+            }
+            return new SkinState(layers, affixesType, affixesStr);
+        } catch (NumberFormatException e) {
+            return SkinState.DEFAULT;
+        }
+    }
+
+    /**
+     * @return 皮肤包名称, 多个皮肤包以&分隔.
+     */
+    public String getSkinName() {
+        SkinState state = getSkinState();
+        StringBuilder skinName = new StringBuilder();
+        for (int i = 0; i < state.getLayerCount(); i++) {
+            if (i != 0) {
+                skinName.append(SKIN_SEPARATOR);
+            }
+            skinName.append(state.getLayer(i).getSkinName());
+        }
+        return skinName.toString();
     }
 
+    /**
+     * @return 皮肤包加载策略, 多个皮肤包以&分隔.
+     */
     public String getSkinStrategy() {
-        return mPref.getString(KEY_SKIN_STRATEGY, "");
+        SkinState state = getSkinState();
+        StringBuilder strategy = new StringBuilder();
+        for (int i = 0; i < state.getLayerCount(); i++) {
+            if (i != 0) {
+                strategy.append(SKIN_SEPARATOR);
+            }
+            strategy.append(state.getLayer(i).getStrategy());
+        }
+        return strategy.toString();
+    }
+
+    public int getAffixesType() {
+        return getSkinState().getAffixesType();
+    }
+
+    public String getAffixesStr() {
+        return getSkinState().getAffixesStr();
     }
 
-    public SkinPreference setAffixesType(int strategy) {
-        mEditor.putInt(KEY_AFFIXES_TYPE, strategy);
+    /**
+     * @deprecated 使用{@link #setSkinState(SkinState)}.
+     */
+    @Deprecated
+    public synchronized SkinPreference setSkinName(String skinName) {
+        mPendingSkinName = skinName == null ? "" : skinName;
         return this;
     }
 
-    public int getAffixesType() {
-        return mPref.getInt(KEY_AFFIXES_TYPE, SkinCompatManager.SkinLoaderStrategy.NONE);
+    /**
+     * @deprecated 使用{@link #setSkinState(SkinState)}.
+     */
+    @Deprecated
+    public synchronized SkinPreference setSkinStrategy(String strategy) {
+        mPendingSkinStrategy = strategy == null ? "" : strategy;
+        return this;
     }
 
-    public SkinPreference setAffixesStr(String strategy) {
-        mEditor.putString(KEY_AFFIXES_STR, strategy);
+    /**
+     * @deprecated 使用{@link #setSkinState(SkinState)}.
+     */
+    @Deprecated
+    public synchronized SkinPreference setAffixesType(int strategy) {
+        mPendingAffixesType = strategy;
         return this;
     }
 
-    public String getAffixesStr() {
-        return mPref.getString(KEY_AFFIXES_STR, "");
+    /**
+     * @deprecated 使用{@link #setSkinState(SkinState)}.
+     */
+    @Deprecated
+    public synchronized SkinPreference setAffixesStr(String strategy) {
+        mPendingAffixesStr = strategy == null ? "" : strategy;
+        return this;
     }
 
-    public void commitEditor() {
-        mEditor.apply();
+    /**
+     * @deprecated 使用{@link #setSkinState(SkinState)}.
+     */
+    @Deprecated
+    public synchronized void commitEditor() {
+        // 与旧版本一致, 只修改设置过的项.
+        String skinName = mPendingSkinName != null ? mPendingSkinName : getSkinName();
+        String strategy = mPendingSkinStrategy != null ? mPendingSkinStrategy : getSkinStrategy();
+        int affixesType = mPendingAffixesType != null ? mPendingAffixesType : getAffixesType();
+        String affixesStr = mPendingAffixesStr != null ? mPendingAffixesStr : getAffixesStr();
+        mPendingSkinName = null;
+        mPendingSkinStrategy = null;
+        mPendingAffixesType = null;
+        mPendingAffixesStr = null;
+        setSkinState(parseLegacyState(skinName, strategy, affixesType, affixesStr));
     }
 }
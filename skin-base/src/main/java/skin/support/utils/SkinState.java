@@ -0,0 +1,152 @@
+package skin.support.utils;
+
+import android.util.Base64;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import skin.support.SkinCompatManager.SkinLoaderStrategy;
+
+/**
+ * 记录的皮肤包状态, 以单个编码字符串保存在{@link SkinPreference}中.
+ */
+public final class SkinState {
+    private static final int VERSION = 1;
+    public static final SkinState DEFAULT = new SkinState(new Layer[0], SkinLoaderStrategy.NONE, "");
+
+    /**
+     * 单个皮肤包.
+     */
+    public static final class Layer {
+        private final String mSkinName;
+        private final int mStrategy;
+        private final String mSkinPath;
+        private final long mLength;
+        private final long mLastModified;
+        private final long mChecksum;
+
+        /**
+         * @param skinName     皮肤包名称.
+         * @param strategy     皮肤包加载策略.
+         * @param skinPath     皮肤包文件路径, 应用内换肤时为空.
+         * @param length       皮肤包文件大小.
+         * @param lastModified 皮肤包文件修改时间.
+         * @param checksum     皮肤包文件CRC32校验值, 应用内换肤或未开启资源ID映射表时为0.
+         */
+        public Layer(String skinName, int strategy, String skinPath,
+                     long length, long lastModified, long checksum) {
+            mSkinName = skinName == null ? "" : skinName;
+            mStrategy = strategy;
+            mSkinPath = skinPath == null ? "" : skinPath;
+            mLength = length;
+            mLastModified = lastModified;
+            mChecksum = checksum;
+        }
+
+        public String getSkinName() {
+            return mSkinName;
+        }
+
+        public int getStrategy() {
+            return mStrategy;
+        }
+
+        public String getSkinPath() {
+            return mSkinPath;
+        }
+
+        public long getLength() {
+            return mLength;
+        }
+
+        public long getLastModified() {
+            return mLastModified;
+        }
+
+        public long getChecksum() {
+            return mChecksum;
+        }
+    }
+
+    private final Layer[] mLayers;
+    private final int mAffixesType;
+    private final String mAffixesStr;
+
+    public SkinState(Layer[] layers, int affixesType, String affixesStr) {
+        mLayers = layers;
+        mAffixesType = affixesType;
+        mAffixesStr = affixesStr == null ? "" : affixesStr;
+    }
+
+    public int getLayerCount() {
+        return mLayers.length;
+    }
+
+    public Layer getLayer(int index) {
+        return mLayers[index];
+    }
+
+    public boolean isDefault() {
+        return mLayers.length == 0;
+    }
+
+    public int getAffixesType() {
+        return mAffixesType;
+    }
+
+    public String getAffixesStr() {
+        return mAffixesStr;
+    }
+
+    String encode() {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            DataOutputStream os = new DataOutputStream(bos);
+            os.writeByte(VERSION);
+            os.writeInt(mLayers.length);
+            for (Layer layer : mLayers) {
+                os.writeUTF(layer.mSkinName);
+                os.writeInt(layer.mStrategy);
+                os.writeUTF(layer.mSkinPath);
+                os.writeLong(layer.mLength);
+                os.writeLong(layer.mLastModified);
+                os.writeLong(layer.mChecksum);
+            }
+            os.writeInt(mAffixesType);
+            os.writeUTF(mAffixesStr);
+            os.flush();
+            return Base64.encodeToString(bos.toByteArray(), Base64.NO_WRAP);
+        } catch (IOException e) {
+            // ByteArrayOutputStream不会抛出IOException.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return 版本不符或已损坏时返回null.
+     */
+    static SkinState decode(String record) {
+        try {
+            DataInputStream is = new DataInputStream(
+                    new ByteArrayInputStream(Base64.decode(record, Base64.NO_WRAP)));
+            if (is.readByte() != VERSION) {
+                return null;
+            }
+            int count = is.readInt();
+            if (count < 0 || count > is.available()) {
+                return null;
+            }
+            Layer[] layers = new Layer[count];
+            for (int i = 0; i < count; i++) {
+                layers[i] = new Layer(is.readUTF(), is.readInt(), is.readUTF(),
+                        is.readLong(), is.readLong(), is.readLong());
+            }
+            return new SkinState(layers, is.readInt(), is.readUTF());
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
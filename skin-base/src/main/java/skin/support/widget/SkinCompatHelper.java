@@ -1,13 +1,116 @@
 package skin.support.widget;
 
+import android.content.Context;
+
+import java.util.Arrays;
+
+import skin.support.content.res.SkinCompatResources;
+
 public abstract class SkinCompatHelper {
     protected static final String SYSTEM_ID_PREFIX = "1";
     public static final int INVALID_ID = 0;
+    private static final int INVALID_GENERATION = -1;
+
+    private static final int[] NO_DEPENDENCIES = new int[0];
+
+    private int mSkinGeneration = INVALID_GENERATION;
+    private int[] mResDependencies = NO_DEPENDENCIES;
+    // 下标由子类定义, 记录上次设置的资源来源.
+    private long[] mResSources;
 
     public static int checkResourceId(int resId) {
         String hexResId = Integer.toHexString(resId);
         return hexResId.startsWith(SYSTEM_ID_PREFIX) ? INVALID_ID : resId;
     }
 
+    /**
+     * 记录当前皮肤版本号.
+     *
+     * @return 当前皮肤已经应用过，返回false.
+     */
+    protected boolean updateSkinGeneration(Context context) {
+        int generation = SkinCompatResources.getInstance(context).getGeneration();
+        if (generation == mSkinGeneration) {
+            return false;
+        }
+        mSkinGeneration = generation;
+        return true;
+    }
+
+    /**
+     * 资源ID改变后调用，下次{@link #applySkin()}时重新设置资源.
+     */
+    protected void resetSkinGeneration() {
+        mSkinGeneration = INVALID_GENERATION;
+        mResSources = null;
+    }
+
+    /**
+     * 外部setter已经重新设置了某个属性, 只清除该属性记录的来源, 其他属性不受影响.
+     *
+     * @param slot 子类中区分不同属性的下标.
+     */
+    protected void resetResSource(int slot) {
+        if (mResSources != null && slot < mResSources.length) {
+            mResSources[slot] = SkinCompatResources.UNKNOWN_SOURCE;
+        }
+    }
+
+    /**
+     * 记录当前使用的应用资源ID, 这些资源变化时通过{@link SkinResDependencyIndex}重新设置.
+     *
+     * @param resIds 当前使用的资源ID, {@link #INVALID_ID}会被忽略.
+     */
+    protected void setResDependencies(int... resIds) {
+        if (Arrays.equals(resIds, mResDependencies)) {
+            return;
+        }
+        SkinResDependencyIndex index = SkinResDependencyIndex.getInstance();
+        for (int resId : mResDependencies) {
+            if (resId != INVALID_ID && !contains(resIds, resId)) {
+                index.remove(resId, this);
+            }
+        }
+        for (int resId : resIds) {
+            if (resId != INVALID_ID) {
+                index.add(resId, this);
+            }
+        }
+        mResDependencies = resIds;
+    }
+
+    private static boolean contains(int[] array, int value) {
+        for (int element : array) {
+            if (element == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 比较资源来源与上次设置时是否相同, 并记录本次的来源. 来源相同时资源值不变, 可以跳过setter, 避免重新布局.
+     *
+     * @param context {@link Context}
+     * @param slot    子类中区分不同属性的下标, 从0开始.
+     * @param resId   应用中的资源ID.
+     * @return 来源发生变化或无法确定时返回true.
+     */
+    protected boolean isResSourceChanged(Context context, int slot, int resId) {
+        long source = resId == INVALID_ID
+                ? INVALID_ID : SkinCompatResources.getInstance(context).getResourceSource(resId);
+        if (mResSources == null || slot >= mResSources.length) {
+            long[] sources = new long[slot + 1];
+            Arrays.fill(sources, SkinCompatResources.UNKNOWN_SOURCE);
+            if (mResSources != null) {
+                System.arraycopy(mResSources, 0, sources, 0, mResSources.length);
+            }
+            mResSources = sources;
+        }
+        long previous = mResSources[slot];
+        mResSources[slot] = source;
+        return source == SkinCompatResources.UNKNOWN_SOURCE || source != previous;
+    }
+
     abstract public void applySkin();
 }
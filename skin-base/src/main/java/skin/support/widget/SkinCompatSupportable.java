@@ -5,5 +5,12 @@ package skin.support.widget;
  */
 
 public interface SkinCompatSupportable {
+    /**
+     * 换肤时调用.
+     * <p>
+     * 只有通过{@link SkinCompatHelper}设置的资源会记录在{@link SkinResDependencyIndex}中,
+     * 在此直接读取的资源不会随{@link skin.support.SkinCompatManager#notifyResourcesChanged(int...)}
+     * 及运行时覆盖的资源更新.
+     */
     void applySkin();
 }
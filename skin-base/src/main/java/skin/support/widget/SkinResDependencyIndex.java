@@ -0,0 +1,107 @@
+package skin.support.widget;
+
+import android.util.SparseArray;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 应用资源ID到使用该资源的{@link SkinCompatHelper}的反向索引, 只有部分资源变化时只更新相关的View.
+ * <p>
+ * 在主线程中更新, {@link #getResIds()}可以在后台线程中调用.
+ */
+public class SkinResDependencyIndex {
+    private static final SkinResDependencyIndex sInstance = new SkinResDependencyIndex();
+    private final SparseArray<WeakHashMap<SkinCompatHelper, Boolean>> mDependents = new SparseArray<>();
+
+    public static SkinResDependencyIndex getInstance() {
+        return sInstance;
+    }
+
+    private SkinResDependencyIndex() {
+    }
+
+    synchronized void add(int resId, SkinCompatHelper helper) {
+        WeakHashMap<SkinCompatHelper, Boolean> helpers = mDependents.get(resId);
+        if (helpers == null) {
+            helpers = new WeakHashMap<>();
+            mDependents.put(resId, helpers);
+        }
+        helpers.put(helper, Boolean.TRUE);
+    }
+
+    synchronized void remove(int resId, SkinCompatHelper helper) {
+        WeakHashMap<SkinCompatHelper, Boolean> helpers = mDependents.get(resId);
+        if (helpers != null) {
+            helpers.remove(helper);
+            if (helpers.isEmpty()) {
+                mDependents.remove(resId);
+            }
+        }
+    }
+
+    /**
+     * @param resId 应用中的资源ID.
+     * @return 使用该资源的helper数.
+     */
+    public synchronized int getDependentCount(int resId) {
+        WeakHashMap<SkinCompatHelper, Boolean> helpers = mDependents.get(resId);
+        return helpers == null ? 0 : helpers.size();
+    }
+
+    /**
+     * View被回收后WeakHashMap中的条目自动清除, 移除已经没有View使用的资源ID.
+     */
+    private void pruneEmptyDependents() {
+        for (int i = mDependents.size() - 1; i >= 0; i--) {
+            if (mDependents.valueAt(i).isEmpty()) {
+                mDependents.removeAt(i);
+            }
+        }
+    }
+
+    /**
+     * @return 当前被View使用的所有应用资源ID, 用于换肤前在后台线程中预先解析资源.
+     */
+    public synchronized int[] getResIds() {
+        pruneEmptyDependents();
+        int[] resIds = new int[mDependents.size()];
+        for (int i = 0; i < resIds.length; i++) {
+            resIds[i] = mDependents.keyAt(i);
+        }
+        return resIds;
+    }
+
+    /**
+     * 重新设置使用了指定资源的View, 每个View只更新一次.
+     *
+     * @param resIds 发生变化的应用资源ID.
+     * @return 更新的View数.
+     */
+    public int invalidate(int... resIds) {
+        Map<SkinCompatHelper, Boolean> targets = new IdentityHashMap<>();
+        synchronized (this) {
+            pruneEmptyDependents();
+            for (int resId : resIds) {
+                WeakHashMap<SkinCompatHelper, Boolean> helpers = mDependents.get(resId);
+                if (helpers != null) {
+                    for (SkinCompatHelper helper : helpers.keySet()) {
+                        if (helper != null) {
+                            targets.put(helper, Boolean.TRUE);
+                        }
+                    }
+                }
+            }
+        }
+        // 重新设置资源时会更新索引, 先复制再遍历.
+        List<SkinCompatHelper> helpers = new ArrayList<>(targets.keySet());
+        for (SkinCompatHelper helper : helpers) {
+            helper.resetSkinGeneration();
+            helper.applySkin();
+        }
+        return helpers.size();
+    }
+}
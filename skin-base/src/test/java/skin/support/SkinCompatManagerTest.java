@@ -0,0 +1,334 @@
+package skin.support;
+
+import android.app.Application;
+import android.content.Context;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import skin.base.BuildConfig;
+import skin.support.SkinCompatManager.SkinLoaderStrategy;
+import skin.support.content.res.SkinCompatResources;
+import skin.support.utils.SkinPreference;
+import skin.support.utils.SkinState;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SkinCompatManagerTest {
+    private static final int STRATEGY_TYPE = 100;
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private Application mApplication;
+    private SkinCompatManager mManager;
+    private TestStrategy mStrategy;
+
+    @Before
+    public void setUp() {
+        mApplication = RuntimeEnvironment.application;
+        mStrategy = new TestStrategy();
+        mManager = SkinCompatManager.init(mApplication).addStrategy(mStrategy);
+        // 加载结果通过Handler投递到主线程, 由测试控制执行时机.
+        ShadowLooper.pauseMainLooper();
+    }
+
+    @After
+    public void tearDown() {
+        mStrategy.unblockAll();
+    }
+
+    @Test
+    public void supersededLoadIsCancelled() throws InterruptedException {
+        int generation = getResources().getGeneration();
+        RecordingListener night = new RecordingListener();
+        RecordingListener blue = new RecordingListener();
+        mStrategy.block("night");
+
+        loadSkin("night", night);
+        mStrategy.awaitStarted("night");
+        loadSkin("blue", blue);
+        mStrategy.unblock("night");
+        awaitDelivered(blue);
+
+        assertEquals(1, night.mStartCount);
+        assertEquals(1, night.mCancelledCount);
+        assertEquals(0, night.mSuccessCount);
+        assertEquals(0, night.mFailedCount);
+        assertEquals(1, blue.mSuccessCount);
+        assertEquals(0, blue.mCancelledCount);
+        // 只有最后一次加载生效.
+        assertEquals(generation + 1, getResources().getGeneration());
+        assertEquals(getEntries("blue"), getResources().getSkinEntries());
+        assertEquals(1, mStrategy.getEntry("night").mReleaseCount);
+        assertEquals(0, mStrategy.getEntry("blue").mReleaseCount);
+    }
+
+    @Test
+    public void queuedLoadSupersededBeforeStartNeverRuns() throws InterruptedException {
+        RecordingListener blue = new RecordingListener();
+        RecordingListener green = new RecordingListener();
+        mStrategy.block("night");
+
+        loadSkin("night", new RecordingListener());
+        mStrategy.awaitStarted("night");
+        loadSkin("blue", blue);
+        loadSkin("green", green);
+        mStrategy.unblock("night");
+        awaitDelivered(green);
+
+        assertNull(mStrategy.getEntry("blue"));
+        assertEquals(1, blue.mCancelledCount);
+        assertEquals(0, blue.mSuccessCount);
+        assertEquals(1, green.mSuccessCount);
+        assertEquals(getEntries("green"), getResources().getSkinEntries());
+    }
+
+    @Test
+    public void cancelledLoadNotifiesPlainListenerAsFailure() throws InterruptedException {
+        final List<String> errors = new ArrayList<>();
+        RecordingListener blue = new RecordingListener();
+        mStrategy.block("night");
+
+        loadSkin("night", new SkinCompatManager.SkinLoaderListener() {
+            @Override
+            public void onStart() {
+            }
+
+            @Override
+            public void onSuccess() {
+            }
+
+            @Override
+            public void onFailed(String errMsg) {
+                errors.add(errMsg);
+            }
+        });
+        mStrategy.awaitStarted("night");
+        loadSkin("blue", blue);
+        mStrategy.unblock("night");
+        awaitDelivered(blue);
+
+        assertEquals(Arrays.asList(SkinCompatManager.SKIN_LOADER_CANCELLED), errors);
+    }
+
+    @Test
+    public void layersLoadInParallelAndPublishInOrder() throws InterruptedException {
+        RecordingListener listener = new RecordingListener();
+        mStrategy.block("a");
+
+        mManager.loadSkin(Arrays.asList("a", "b"), Arrays.asList(STRATEGY_TYPE, STRATEGY_TYPE),
+                SkinLoaderStrategy.NONE, "", listener);
+        // "a"尚未完成时"b"已经开始加载.
+        mStrategy.awaitStarted("a");
+        mStrategy.awaitStarted("b");
+        mStrategy.unblock("a");
+        awaitDelivered(listener);
+
+        assertEquals(1, listener.mSuccessCount);
+        assertEquals(getEntries("b", "a"), getResources().getSkinEntries());
+    }
+
+    @Test
+    public void loadSkinSyncPublishesBeforeReturning() {
+        saveSkin("night");
+        RecordingListener listener = new RecordingListener();
+
+        assertTrue(mManager.loadSkinSync(TIMEOUT_MILLIS, listener));
+
+        assertEquals(1, listener.mSuccessCount);
+        assertEquals(getEntries("night"), getResources().getSkinEntries());
+    }
+
+    @Test
+    public void loadSkinSyncWithoutRecordReturnsImmediately() {
+        RecordingListener listener = new RecordingListener();
+
+        assertTrue(mManager.loadSkinSync(TIMEOUT_MILLIS, listener));
+
+        assertEquals(0, listener.mStartCount);
+        assertNull(mStrategy.getEntry("night"));
+    }
+
+    @Test
+    public void loadSkinSyncTimeoutContinuesInBackground() throws InterruptedException {
+        saveSkin("night");
+        RecordingListener listener = new RecordingListener();
+        mStrategy.block("night");
+
+        assertFalse(mManager.loadSkinSync(50, listener));
+        assertEquals(0, listener.mSuccessCount);
+
+        mStrategy.unblock("night");
+        awaitDelivered(listener);
+
+        assertEquals(1, listener.mSuccessCount);
+        assertEquals(getEntries("night"), getResources().getSkinEntries());
+    }
+
+    private void loadSkin(String skinName, SkinCompatManager.SkinLoaderListener listener) {
+        mManager.loadSkin(skinName, STRATEGY_TYPE, SkinLoaderStrategy.NONE, "", listener);
+    }
+
+    private void saveSkin(String skinName) {
+        SkinPreference.getInstance(mApplication).setSkinState(new SkinState(new SkinState.Layer[]{
+                new SkinState.Layer(skinName, STRATEGY_TYPE, "", 0, 0, 0)
+        }, SkinLoaderStrategy.NONE, ""));
+    }
+
+    private SkinCompatResources getResources() {
+        return SkinCompatResources.getInstance(mApplication);
+    }
+
+    private List<SkinCompatResources.SkinEntry> getEntries(String... skinNames) {
+        List<SkinCompatResources.SkinEntry> entries = new ArrayList<>();
+        for (String skinName : skinNames) {
+            entries.add(mStrategy.getEntry(skinName));
+        }
+        return entries;
+    }
+
+    /**
+     * 执行主线程中的消息, 直到监听收到加载结果.
+     */
+    private static void awaitDelivered(RecordingListener listener) throws InterruptedException {
+        for (int i = 0; i < TIMEOUT_MILLIS / 10; i++) {
+            ShadowLooper.runUiThreadTasks();
+            if (listener.isDelivered()) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("加载结果未送达");
+    }
+
+    private static class RecordingListener implements SkinCompatManager.SkinLoaderCancelListener {
+        int mStartCount;
+        int mSuccessCount;
+        int mFailedCount;
+        int mCancelledCount;
+
+        @Override
+        public void onStart() {
+            mStartCount++;
+        }
+
+        @Override
+        public void onSuccess() {
+            mSuccessCount++;
+        }
+
+        @Override
+        public void onFailed(String errMsg) {
+            mFailedCount++;
+        }
+
+        @Override
+        public void onCancelled() {
+            mCancelledCount++;
+        }
+
+        boolean isDelivered() {
+            return mSuccessCount + mFailedCount + mCancelledCount > 0;
+        }
+    }
+
+    private static class ReleaseCountingEntry extends SkinCompatResources.SkinEntry {
+        volatile int mReleaseCount;
+
+        ReleaseCountingEntry(Context context, String skinName, SkinLoaderStrategy strategy) {
+            super(context, context.getResources(), context.getPackageName(), skinName, strategy);
+        }
+
+        @Override
+        public void release() {
+            mReleaseCount++;
+            super.release();
+        }
+    }
+
+    /**
+     * 使用应用自身资源的加载策略, 可以阻塞指定皮肤包的加载.
+     */
+    private static class TestStrategy implements SkinLoaderStrategy {
+        private final Map<String, CountDownLatch> mBlocks = new ConcurrentHashMap<>();
+        private final Map<String, CountDownLatch> mStarted = new ConcurrentHashMap<>();
+        private final Map<String, ReleaseCountingEntry> mEntries = new ConcurrentHashMap<>();
+
+        void block(String skinName) {
+            mBlocks.put(skinName, new CountDownLatch(1));
+        }
+
+        void unblock(String skinName) {
+            mBlocks.get(skinName).countDown();
+        }
+
+        void unblockAll() {
+            for (CountDownLatch block : mBlocks.values()) {
+                block.countDown();
+            }
+        }
+
+        void awaitStarted(String skinName) throws InterruptedException {
+            assertTrue(getStarted(skinName).await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        }
+
+        ReleaseCountingEntry getEntry(String skinName) {
+            return mEntries.get(skinName);
+        }
+
+        private synchronized CountDownLatch getStarted(String skinName) {
+            CountDownLatch started = mStarted.get(skinName);
+            if (started == null) {
+                started = new CountDownLatch(1);
+                mStarted.put(skinName, started);
+            }
+            return started;
+        }
+
+        @Override
+        public String loadSkinInBackground(Context context, String skinName) {
+            getStarted(skinName).countDown();
+            CountDownLatch block = mBlocks.get(skinName);
+            if (block != null) {
+                try {
+                    block.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    return null;
+                }
+            }
+            ReleaseCountingEntry entry = new ReleaseCountingEntry(context, skinName, this);
+            mEntries.put(skinName, entry);
+            SkinCompatResources.getInstance(context).addSkinEntry(entry);
+            return skinName;
+        }
+
+        @Override
+        public String getTargetResourceEntryName(Context context, String skinName, int resId,
+                                                 int affixesType, String affixesStr) {
+            return null;
+        }
+
+        @Override
+        public int getType() {
+            return STRATEGY_TYPE;
+        }
+    }
+}
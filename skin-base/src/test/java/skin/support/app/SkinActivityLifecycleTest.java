@@ -0,0 +1,80 @@
+package skin.support.app;
+
+import android.app.Activity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.ActivityController;
+
+import skin.base.BuildConfig;
+import skin.support.SkinCompatManager;
+import skin.support.widget.SkinCompatSupportable;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SkinActivityLifecycleTest {
+    private SkinCompatManager mManager;
+    private ActivityController<SkinnedActivity> mController;
+    private SkinnedActivity mActivity;
+
+    @Before
+    public void setUp() {
+        mManager = SkinCompatManager.init(RuntimeEnvironment.application);
+        mController = Robolectric.buildActivity(SkinnedActivity.class).create().start().resume();
+        mActivity = mController.get();
+    }
+
+    @Test
+    public void visibleActivityIsSkinnedOnNotify() {
+        int count = mActivity.mApplyCount;
+
+        mManager.notifyUpdateSkin();
+
+        assertEquals(count + 1, mActivity.mApplyCount);
+    }
+
+    @Test
+    public void stoppedActivityIsSkinnedOnceWhenStarted() {
+        mController.pause().stop();
+        int count = mActivity.mApplyCount;
+
+        mManager.notifyUpdateSkin();
+        mManager.notifyUpdateSkin();
+        assertEquals(count, mActivity.mApplyCount);
+
+        mController.start();
+        assertEquals(count + 1, mActivity.mApplyCount);
+        mController.resume();
+        assertEquals(count + 1, mActivity.mApplyCount);
+
+        // 重新显示后继续监听换肤.
+        mManager.notifyUpdateSkin();
+        assertEquals(count + 2, mActivity.mApplyCount);
+    }
+
+    @Test
+    public void restartWithoutSkinChangeDoesNotReskin() {
+        mController.pause().stop();
+        int count = mActivity.mApplyCount;
+
+        mController.start().resume();
+
+        assertEquals(count, mActivity.mApplyCount);
+    }
+
+    public static class SkinnedActivity extends Activity implements SkinCompatSupportable {
+        int mApplyCount;
+
+        @Override
+        public void applySkin() {
+            mApplyCount++;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package skin.support.app;
+
+import android.app.Application;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import skin.base.BuildConfig;
+import skin.support.SkinCompatManager;
+import skin.support.content.res.SkinCompatResources;
+import skin.support.widget.SkinCompatSupportable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SkinDelegateTest {
+    private static final int VIEW_COUNT = 40;
+
+    private Application mApplication;
+    private SkinDelegate mDelegate;
+    private List<FakeView> mViews;
+
+    @Before
+    public void setUp() {
+        mApplication = RuntimeEnvironment.application;
+        SkinCompatManager.init(mApplication);
+        mDelegate = SkinDelegate.create(mApplication);
+        mViews = new ArrayList<>();
+        for (int i = 0; i < VIEW_COUNT; i++) {
+            FakeView view = new FakeView();
+            mViews.add(view);
+            mDelegate.addSkinHelper(view);
+        }
+    }
+
+    @Test
+    public void countsCollectedViewsBelowCompactThreshold() {
+        release(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+
+        assertEquals(VIEW_COUNT - 10, mDelegate.getLiveViewCount());
+        assertEquals(10, mDelegate.getDeadViewCount());
+    }
+
+    @Test
+    public void compactsWhenMostViewsAreCollected() {
+        List<FakeView> kept = keep(0, 13, 27, 39);
+
+        assertEquals(kept.size(), mDelegate.getLiveViewCount());
+        assertEquals(0, mDelegate.getDeadViewCount());
+    }
+
+    @Test
+    public void applySkinVisitsLiveViewsOnce() {
+        List<FakeView> kept = keep(3, 17, 38);
+        assertEquals(kept.size(), mDelegate.getLiveViewCount());
+        publishNewSkin();
+
+        assertTrue(mDelegate.applySkin(Long.MAX_VALUE));
+
+        for (FakeView view : kept) {
+            assertEquals(1, view.mApplyCount);
+        }
+        // 皮肤未变化时不再重复换肤.
+        assertTrue(mDelegate.applySkin(Long.MAX_VALUE));
+        for (FakeView view : kept) {
+            assertEquals(1, view.mApplyCount);
+        }
+    }
+
+    @Test
+    public void compactKeepsIncrementalCursor() {
+        publishNewSkin();
+        // 截止时间已过, 每次只处理一个View.
+        for (int i = 0; i < 10; i++) {
+            assertFalse(mDelegate.applySkin(0));
+        }
+        FakeView appliedFirst = mViews.get(2);
+        FakeView appliedLast = mViews.get(9);
+        FakeView pendingFirst = mViews.get(10);
+        FakeView pendingLast = mViews.get(30);
+        assertEquals(1, appliedFirst.mApplyCount);
+        assertEquals(1, appliedLast.mApplyCount);
+        assertEquals(0, pendingFirst.mApplyCount);
+
+        // 游标前后都有View被回收.
+        keep(2, 9, 10, 30);
+        assertEquals(4, mDelegate.getLiveViewCount());
+        assertEquals(0, mDelegate.getDeadViewCount());
+
+        assertTrue(mDelegate.applySkin(Long.MAX_VALUE));
+
+        assertEquals(1, appliedFirst.mApplyCount);
+        assertEquals(1, appliedLast.mApplyCount);
+        assertEquals(1, pendingFirst.mApplyCount);
+        assertEquals(1, pendingLast.mApplyCount);
+    }
+
+    @Test
+    public void newViewsAfterCompactAreApplied() {
+        keep(5);
+        assertEquals(1, mDelegate.getLiveViewCount());
+        FakeView added = new FakeView();
+        mDelegate.addSkinHelper(added);
+        publishNewSkin();
+
+        assertTrue(mDelegate.applySkin(Long.MAX_VALUE));
+
+        assertEquals(2, mDelegate.getLiveViewCount());
+        assertEquals(1, added.mApplyCount);
+    }
+
+    private void publishNewSkin() {
+        SkinCompatResources.getInstance(mApplication)
+                .publish(Collections.<SkinCompatResources.SkinEntry>emptyList());
+    }
+
+    /**
+     * 只保留指定位置的View, 其余View视为已被回收.
+     */
+    private List<FakeView> keep(int... positions) {
+        List<FakeView> kept = new ArrayList<>();
+        for (int position : positions) {
+            kept.add(mViews.get(position));
+        }
+        for (FakeView view : mViews) {
+            if (!kept.contains(view)) {
+                mDelegate.clearReference(view);
+            }
+        }
+        return kept;
+    }
+
+    private void release(int... positions) {
+        for (int position : positions) {
+            mDelegate.clearReference(mViews.get(position));
+        }
+    }
+
+    private static class FakeView implements SkinCompatSupportable {
+        int mApplyCount;
+
+        @Override
+        public void applySkin() {
+            mApplyCount++;
+        }
+    }
+}
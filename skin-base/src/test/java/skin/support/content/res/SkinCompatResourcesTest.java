@@ -0,0 +1,124 @@
+package skin.support.content.res;
+
+import android.app.Application;
+import android.content.Context;
+import android.support.v4.content.ContextCompat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Collections;
+import java.util.List;
+
+import skin.base.BuildConfig;
+import skin.support.SkinCompatManager;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SkinCompatResourcesTest {
+    private static final int[] RES_IDS = {android.R.color.white, android.R.color.black};
+
+    private Application mApplication;
+    private SkinCompatResources mResources;
+
+    @Before
+    public void setUp() {
+        mApplication = RuntimeEnvironment.application;
+        SkinCompatManager.init(mApplication);
+        mResources = SkinCompatResources.getInstance(mApplication);
+    }
+
+    @Test
+    public void publishUsesPreparedResources() {
+        CountingEntry entry = new CountingEntry(mApplication);
+        List<SkinCompatResources.SkinEntry> entries = Collections.<SkinCompatResources.SkinEntry>singletonList(entry);
+
+        assertEquals(RES_IDS.length, mResources.prepare(entries, RES_IDS));
+        assertEquals(RES_IDS.length, entry.mLookupCount);
+        mResources.publish(entries);
+
+        assertEquals(ContextCompat.getColor(mApplication, android.R.color.white),
+                mResources.getColor(android.R.color.white));
+        assertEquals(ContextCompat.getColorStateList(mApplication, android.R.color.black).getDefaultColor(),
+                mResources.getColorStateList(android.R.color.black).getDefaultColor());
+        // 主线程中不再查找皮肤包.
+        assertEquals(RES_IDS.length, entry.mLookupCount);
+    }
+
+    @Test
+    public void publishOtherEntriesIgnoresPreparedResources() {
+        CountingEntry prepared = new CountingEntry(mApplication);
+        CountingEntry published = new CountingEntry(mApplication);
+        mResources.prepare(Collections.<SkinCompatResources.SkinEntry>singletonList(prepared), RES_IDS);
+
+        mResources.publish(Collections.<SkinCompatResources.SkinEntry>singletonList(published));
+        mResources.getColor(android.R.color.white);
+
+        assertEquals(RES_IDS.length, prepared.mLookupCount);
+        assertEquals(1, published.mLookupCount);
+    }
+
+    @Test
+    public void interveningPublishInvalidatesPreparedResources() {
+        CountingEntry entry = new CountingEntry(mApplication);
+        List<SkinCompatResources.SkinEntry> entries = Collections.<SkinCompatResources.SkinEntry>singletonList(entry);
+        mResources.prepare(entries, RES_IDS);
+
+        // 预先解析期间有其他皮肤生效, 版本号已经变化.
+        mResources.publish(Collections.<SkinCompatResources.SkinEntry>emptyList());
+        mResources.publish(entries);
+        mResources.getColor(android.R.color.white);
+
+        assertEquals(RES_IDS.length + 1, entry.mLookupCount);
+    }
+
+    @Test
+    public void discardPreparedOnlyDropsMatchingEntries() {
+        CountingEntry entry = new CountingEntry(mApplication);
+        List<SkinCompatResources.SkinEntry> entries = Collections.<SkinCompatResources.SkinEntry>singletonList(entry);
+        mResources.prepare(entries, RES_IDS);
+
+        mResources.discardPrepared(Collections.<SkinCompatResources.SkinEntry>singletonList(
+                new CountingEntry(mApplication)));
+        mResources.publish(entries);
+        mResources.getColor(android.R.color.white);
+
+        assertEquals(RES_IDS.length, entry.mLookupCount);
+    }
+
+    @Test
+    public void discardPreparedDropsResourcesOfCancelledLoad() {
+        CountingEntry entry = new CountingEntry(mApplication);
+        List<SkinCompatResources.SkinEntry> entries = Collections.<SkinCompatResources.SkinEntry>singletonList(entry);
+        mResources.prepare(entries, RES_IDS);
+
+        mResources.discardPrepared(entries);
+        mResources.publish(entries);
+        mResources.getColor(android.R.color.white);
+
+        assertEquals(RES_IDS.length + 1, entry.mLookupCount);
+    }
+
+    /**
+     * 不包含任何资源的皮肤包, 记录查找次数.
+     */
+    private static class CountingEntry extends SkinCompatResources.SkinEntry {
+        int mLookupCount;
+
+        CountingEntry(Context context) {
+            super(context, context.getResources(), context.getPackageName(), "counting", null);
+        }
+
+        @Override
+        public int getTargetResId(int resId) {
+            mLookupCount++;
+            return 0;
+        }
+    }
+}
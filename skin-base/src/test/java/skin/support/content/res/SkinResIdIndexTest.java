@@ -0,0 +1,208 @@
+package skin.support.content.res;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import skin.support.SkinCompatManager.SkinLoaderStrategy;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SkinResIdIndexTest {
+    private static final int COLOR_TYPE = 0x06;
+    private static final int DRAWABLE_TYPE = 0x02;
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+    private File mDir;
+
+    @Before
+    public void setUp() throws IOException {
+        mDir = mTemporaryFolder.newFolder("skin");
+    }
+
+    @Test
+    public void readReturnsWrittenTables() {
+        SkinResIdIndex.Key key = createKey(1, 100L, 0x1234L);
+        createIndex(0x7f010001).write(mDir, key);
+
+        SkinResIdIndex index = SkinResIdIndex.read(mDir, key);
+
+        assertNotNull(index);
+        assertEquals(0x7f010000, index.get(SkinResIdIndex.makeResId(COLOR_TYPE, 0)));
+        assertEquals(0, index.get(SkinResIdIndex.makeResId(COLOR_TYPE, 1)));
+        assertEquals(0x7f010001, index.get(SkinResIdIndex.makeResId(COLOR_TYPE, 2)));
+        assertEquals(0x7f020000, index.get(SkinResIdIndex.makeResId(DRAWABLE_TYPE, 0)));
+        assertNoTempFiles();
+    }
+
+    @Test
+    public void getReturnsNotIndexedOutsideTables() {
+        SkinResIdIndex.Key key = createKey(1, 100L, 0x1234L);
+        createIndex(0x7f010001).write(mDir, key);
+
+        SkinResIdIndex index = SkinResIdIndex.read(mDir, key);
+
+        assertNotNull(index);
+        // 系统资源.
+        assertEquals(SkinResIdIndex.NOT_INDEXED, index.get(0x01060000));
+        // 未建立映射的资源类型.
+        assertEquals(SkinResIdIndex.NOT_INDEXED, index.get(SkinResIdIndex.makeResId(0x03, 0)));
+        // 超出表长度的资源条目.
+        assertEquals(SkinResIdIndex.NOT_INDEXED, index.get(SkinResIdIndex.makeResId(COLOR_TYPE, 3)));
+    }
+
+    @Test
+    public void readReturnsNullWhenFileMissing() {
+        assertNull(SkinResIdIndex.read(mDir, createKey(1, 100L, 0x1234L)));
+    }
+
+    @Test
+    public void readRejectsStaleKey() {
+        SkinResIdIndex.Key key = createKey(1, 100L, 0x1234L);
+
+        createIndex(0x7f010001).write(mDir, key);
+        assertNull(SkinResIdIndex.read(mDir, createKey(2, 100L, 0x1234L)));
+        assertFalse(indexFile(key).exists());
+
+        createIndex(0x7f010001).write(mDir, key);
+        assertNull(SkinResIdIndex.read(mDir, createKey(1, 200L, 0x1234L)));
+        assertFalse(indexFile(key).exists());
+
+        createIndex(0x7f010001).write(mDir, key);
+        assertNull(SkinResIdIndex.read(mDir, createKey(1, 100L, 0x5678L)));
+        assertFalse(indexFile(key).exists());
+    }
+
+    @Test
+    public void affixConfigUsesSeparateFile() {
+        SkinResIdIndex.Key key = createKey(1, 100L, 0x1234L);
+        SkinResIdIndex.Key prefixKey = new SkinResIdIndex.Key(1, 100L, 0x1234L, "night", 0,
+                new SkinConfig(SkinLoaderStrategy.PREFIX, "night"));
+        createIndex(0x7f010001).write(mDir, key);
+
+        assertNull(SkinResIdIndex.read(mDir, prefixKey));
+        assertNotNull(SkinResIdIndex.read(mDir, key));
+    }
+
+    @Test
+    public void readRejectsCorruptedTable() throws IOException {
+        SkinResIdIndex.Key key = createKey(1, 100L, 0x1234L);
+        createIndex(0x7f010001).write(mDir, key);
+        File file = indexFile(key);
+        // 最后一个表项位于末尾的校验值之前.
+        flipByte(file, file.length() - 5);
+
+        assertNull(SkinResIdIndex.read(mDir, key));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void readRejectsTruncatedFile() throws IOException {
+        SkinResIdIndex.Key key = createKey(1, 100L, 0x1234L);
+        createIndex(0x7f010001).write(mDir, key);
+        File file = indexFile(key);
+        truncate(file, file.length() - 2);
+
+        assertNull(SkinResIdIndex.read(mDir, key));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void readRejectsTrailingBytes() throws IOException {
+        SkinResIdIndex.Key key = createKey(1, 100L, 0x1234L);
+        createIndex(0x7f010001).write(mDir, key);
+        File file = indexFile(key);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(raf.length());
+            raf.writeInt(0);
+        } finally {
+            raf.close();
+        }
+
+        assertNull(SkinResIdIndex.read(mDir, key));
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void rebuiltIndexReplacesRejectedFile() throws IOException {
+        SkinResIdIndex.Key key = createKey(1, 100L, 0x1234L);
+        createIndex(0x7f010001).write(mDir, key);
+        flipByte(indexFile(key), indexFile(key).length() - 5);
+        assertNull(SkinResIdIndex.read(mDir, key));
+
+        // 读取失败后重新建立并写入.
+        createIndex(0x7f010005).write(mDir, key);
+        SkinResIdIndex index = SkinResIdIndex.read(mDir, key);
+
+        assertNotNull(index);
+        assertEquals(0x7f010005, index.get(SkinResIdIndex.makeResId(COLOR_TYPE, 2)));
+        assertNoTempFiles();
+    }
+
+    @Test
+    public void writeOverwritesExistingFile() {
+        SkinResIdIndex.Key key = createKey(1, 100L, 0x1234L);
+        createIndex(0x7f010001).write(mDir, key);
+        createIndex(0x7f010009).write(mDir, key);
+
+        SkinResIdIndex index = SkinResIdIndex.read(mDir, key);
+
+        assertNotNull(index);
+        assertEquals(0x7f010009, index.get(SkinResIdIndex.makeResId(COLOR_TYPE, 2)));
+        assertArrayEquals(new String[]{key.getFileName()}, mDir.list());
+    }
+
+    private static SkinResIdIndex.Key createKey(int versionCode, long lastUpdateTime, long checksum) {
+        return new SkinResIdIndex.Key(versionCode, lastUpdateTime, checksum, "night", 0, SkinConfig.DEFAULT);
+    }
+
+    private static SkinResIdIndex createIndex(int lastColorResId) {
+        int[][] tables = new int[SkinResIdIndex.MAX_TYPE_COUNT + 1][];
+        tables[COLOR_TYPE] = new int[]{0x7f010000, 0, lastColorResId};
+        tables[DRAWABLE_TYPE] = new int[]{0x7f020000};
+        return new SkinResIdIndex(tables);
+    }
+
+    private File indexFile(SkinResIdIndex.Key key) {
+        return new File(mDir, key.getFileName());
+    }
+
+    private void assertNoTempFiles() {
+        for (String name : mDir.list()) {
+            assertTrue(name, name.endsWith(".idx"));
+        }
+    }
+
+    private static void flipByte(File file, long position) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(position);
+            int value = raf.read();
+            raf.seek(position);
+            raf.write(value ^ 0xff);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static void truncate(File file, long length) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(length);
+        } finally {
+            raf.close();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package skin.support.observe;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import skin.base.BuildConfig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SkinApplySchedulerTest {
+    private SkinObservable mObservable;
+
+    @Before
+    public void setUp() {
+        // 下一帧的回调由测试逐帧执行.
+        ShadowLooper.pauseMainLooper();
+        mObservable = new SkinObservable();
+    }
+
+    @Test
+    public void exhaustedBudgetAppliesOneSlicePerFrame() {
+        StepObserver first = new StepObserver(2);
+        StepObserver last = new StepObserver(1);
+        mObservable.addObserver(first);
+        mObservable.addObserver(last);
+        Counter onComplete = new Counter();
+        Counter onCancel = new Counter();
+
+        mObservable.notifyUpdateSkin(null, 0, onComplete, onCancel);
+
+        // 从最后一个观察者开始, 第一片立即执行.
+        assertEquals(1, last.mCallCount);
+        assertEquals(0, first.mCallCount);
+        runFrame();
+        assertEquals(1, first.mCallCount);
+        assertEquals(0, onComplete.mCount);
+        runFrame();
+        assertEquals(2, first.mCallCount);
+        assertEquals(1, last.mCallCount);
+        assertEquals(1, onComplete.mCount);
+        assertEquals(0, onCancel.mCount);
+    }
+
+    @Test
+    public void largeBudgetCompletesImmediately() {
+        StepObserver observer = new StepObserver(3);
+        mObservable.addObserver(observer);
+        Counter onComplete = new Counter();
+
+        mObservable.notifyUpdateSkin(null, Long.MAX_VALUE / 2, onComplete, null);
+
+        assertEquals(3, observer.mCallCount);
+        assertEquals(1, onComplete.mCount);
+    }
+
+    @Test
+    public void supersededApplyIsCancelled() {
+        StepObserver observer = new StepObserver(2);
+        mObservable.addObserver(observer);
+        Counter firstComplete = new Counter();
+        Counter firstCancel = new Counter();
+        Counter secondComplete = new Counter();
+        Counter secondCancel = new Counter();
+
+        mObservable.notifyUpdateSkin(null, 0, firstComplete, firstCancel);
+        mObservable.notifyUpdateSkin(null, 0, secondComplete, secondCancel);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertEquals(1, firstCancel.mCount);
+        assertEquals(0, firstComplete.mCount);
+        assertEquals(1, secondComplete.mCount);
+        assertEquals(0, secondCancel.mCount);
+        assertEquals(2, observer.mCallCount);
+    }
+
+    @Test
+    public void completedApplyIsNotCancelled() {
+        mObservable.addObserver(new StepObserver(1));
+        Counter firstComplete = new Counter();
+        Counter firstCancel = new Counter();
+        Counter secondComplete = new Counter();
+
+        mObservable.notifyUpdateSkin(null, 0, firstComplete, firstCancel);
+        mObservable.notifyUpdateSkin(null, 0, secondComplete, null);
+
+        assertEquals(1, firstComplete.mCount);
+        assertEquals(0, firstCancel.mCount);
+        assertEquals(1, secondComplete.mCount);
+    }
+
+    private static void runFrame() {
+        assertTrue(Robolectric.getForegroundThreadScheduler().runOneTask());
+    }
+
+    /**
+     * 每调用steps次完成一次换肤.
+     */
+    private static class StepObserver implements SkinIncrementalObserver {
+        private final int mSteps;
+        int mCallCount;
+
+        StepObserver(int steps) {
+            mSteps = steps;
+        }
+
+        @Override
+        public void updateSkin(SkinObservable observable, Object o) {
+            updateSkin(observable, o, Long.MAX_VALUE);
+        }
+
+        @Override
+        public boolean updateSkin(SkinObservable observable, Object o, long deadlineNanos) {
+            mCallCount++;
+            return mCallCount % mSteps == 0;
+        }
+    }
+
+    private static class Counter implements Runnable {
+        int mCount;
+
+        @Override
+        public void run() {
+            mCount++;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package skin.support.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import skin.base.BuildConfig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SkinApkUtilsTest {
+    private static final int RES_STRING_POOL_TYPE = 0x0001;
+    private static final int RES_TABLE_TYPE = 0x0002;
+    private static final int RES_TABLE_PACKAGE_TYPE = 0x0200;
+    private static final int TABLE_HEADER_SIZE = 12;
+    private static final int STRING_POOL_HEADER_SIZE = 28;
+    private static final int PACKAGE_HEADER_SIZE = 288;
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void readsPackageNameFromResourceTable() throws IOException {
+        File apk = writeApk("night.skin", createResourceTable("com.example.skin.night"));
+
+        assertEquals("com.example.skin.night", SkinApkUtils.getPackageName(apk.getAbsolutePath()));
+    }
+
+    @Test
+    public void readsPackageNameFillingWholeField() throws IOException {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 128; i++) {
+            name.append('a');
+        }
+        File apk = writeApk("long.skin", createResourceTable(name.toString()));
+
+        assertEquals(name.toString(), SkinApkUtils.getPackageName(apk.getAbsolutePath()));
+    }
+
+    @Test
+    public void returnsNullWithoutResourceTable() throws IOException {
+        File apk = writeApk("empty.skin", null);
+
+        assertNull(SkinApkUtils.getPackageName(apk.getAbsolutePath()));
+    }
+
+    @Test
+    public void returnsNullForUnexpectedChunkType() throws IOException {
+        byte[] table = createResourceTable("com.example.skin");
+        table[0] = 0x03;
+        File apk = writeApk("invalid.skin", table);
+
+        assertNull(SkinApkUtils.getPackageName(apk.getAbsolutePath()));
+    }
+
+    @Test
+    public void returnsNullForTruncatedResourceTable() throws IOException {
+        byte[] table = createResourceTable("com.example.skin");
+        byte[] truncated = new byte[TABLE_HEADER_SIZE + STRING_POOL_HEADER_SIZE + 16];
+        System.arraycopy(table, 0, truncated, 0, truncated.length);
+        File apk = writeApk("truncated.skin", truncated);
+
+        assertNull(SkinApkUtils.getPackageName(apk.getAbsolutePath()));
+    }
+
+    @Test
+    public void returnsNullForNonZipFile() throws IOException {
+        File file = mTemporaryFolder.newFile("plain.skin");
+        FileOutputStream os = new FileOutputStream(file);
+        try {
+            os.write(new byte[]{1, 2, 3, 4});
+        } finally {
+            os.close();
+        }
+
+        assertNull(SkinApkUtils.getPackageName(file.getAbsolutePath()));
+    }
+
+    @Test
+    public void returnsNullForMissingFile() {
+        assertNull(SkinApkUtils.getPackageName(new File(mTemporaryFolder.getRoot(), "missing.skin").getAbsolutePath()));
+        assertNull(SkinApkUtils.getPackageName(null));
+    }
+
+    @Test
+    public void rereadsChangedFile() throws IOException {
+        File apk = writeApk("changed.skin", createResourceTable("com.example.a"));
+        assertEquals("com.example.a", SkinApkUtils.getPackageName(apk.getAbsolutePath()));
+
+        long lastModified = apk.lastModified();
+        writeApk("changed.skin", createResourceTable("com.example.changed"));
+        // 资源表大小不变, 确保修改时间不同.
+        apk.setLastModified(lastModified + 2000);
+
+        assertEquals("com.example.changed", SkinApkUtils.getPackageName(apk.getAbsolutePath()));
+    }
+
+    /**
+     * 资源表头部, 空的全局字符串池及一个只有头部的包.
+     */
+    private static byte[] createResourceTable(String packageName) {
+        int size = TABLE_HEADER_SIZE + STRING_POOL_HEADER_SIZE + PACKAGE_HEADER_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putShort((short) RES_TABLE_TYPE);
+        buffer.putShort((short) TABLE_HEADER_SIZE);
+        buffer.putInt(size);
+        buffer.putInt(1);
+
+        buffer.putShort((short) RES_STRING_POOL_TYPE);
+        buffer.putShort((short) STRING_POOL_HEADER_SIZE);
+        buffer.putInt(STRING_POOL_HEADER_SIZE);
+        buffer.position(buffer.position() + STRING_POOL_HEADER_SIZE - 8);
+
+        int packageStart = buffer.position();
+        buffer.putShort((short) RES_TABLE_PACKAGE_TYPE);
+        buffer.putShort((short) PACKAGE_HEADER_SIZE);
+        buffer.putInt(PACKAGE_HEADER_SIZE);
+        buffer.putInt(0x7f);
+        for (int i = 0; i < packageName.length(); i++) {
+            buffer.putChar(packageName.charAt(i));
+        }
+        buffer.position(packageStart + PACKAGE_HEADER_SIZE);
+        return buffer.array();
+    }
+
+    private File writeApk(String name, byte[] resourceTable) throws IOException {
+        File file = new File(mTemporaryFolder.getRoot(), name);
+        ZipOutputStream os = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            os.putNextEntry(new ZipEntry("AndroidManifest.xml"));
+            os.write(new byte[]{0, 0, 0, 0});
+            os.closeEntry();
+            if (resourceTable != null) {
+                os.putNextEntry(new ZipEntry("resources.arsc"));
+                os.write(resourceTable);
+                os.closeEntry();
+            }
+        } finally {
+            os.close();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,155 @@
+package skin.support.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import skin.base.BuildConfig;
+import skin.support.SkinCompatManager;
+import skin.support.SkinCompatManager.SkinLoaderStrategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SkinPreferenceTest {
+    private Context mContext;
+    private SharedPreferences mPref;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mPref = mContext.getSharedPreferences(mContext.getPackageName() + "meta-data", Context.MODE_PRIVATE);
+    }
+
+    @Test
+    public void migratesLegacyKeys() {
+        mPref.edit()
+                .putString("skin-name", "night.skin&blue.skin")
+                .putString("skin-strategy", SkinCompatManager.SKIN_LOADER_STRATEGY_ASSETS + "&"
+                        + SkinCompatManager.SKIN_LOADER_STRATEGY_BUILD_IN)
+                .putInt("skin-affixes-type", SkinLoaderStrategy.PREFIX)
+                .putString("skin-affixes-str", "blue")
+                .commit();
+
+        SkinState state = getPreference().getSkinState();
+
+        assertEquals(2, state.getLayerCount());
+        assertEquals("night.skin", state.getLayer(0).getSkinName());
+        assertEquals(SkinCompatManager.SKIN_LOADER_STRATEGY_ASSETS, state.getLayer(0).getStrategy());
+        assertEquals("blue.skin", state.getLayer(1).getSkinName());
+        assertEquals(SkinCompatManager.SKIN_LOADER_STRATEGY_BUILD_IN, state.getLayer(1).getStrategy());
+        assertEquals(SkinLoaderStrategy.PREFIX, state.getAffixesType());
+        assertEquals("blue", state.getAffixesStr());
+        assertEquals("night.skin&blue.skin", getPreference().getSkinName());
+        assertEquals("0&1", getPreference().getSkinStrategy());
+        // 迁移后只保留新的记录.
+        assertTrue(mPref.contains("skin-state"));
+        assertFalse(mPref.contains("skin-name"));
+        assertFalse(mPref.contains("skin-strategy"));
+        assertFalse(mPref.contains("skin-affixes-type"));
+        assertFalse(mPref.contains("skin-affixes-str"));
+    }
+
+    @Test
+    public void migratesMismatchedLegacyKeysToDefault() {
+        mPref.edit()
+                .putString("skin-name", "night.skin&blue.skin")
+                .putString("skin-strategy", "0")
+                .commit();
+
+        assertTrue(getPreference().getSkinState().isDefault());
+        assertFalse(mPref.contains("skin-name"));
+    }
+
+    @Test
+    public void migratesInvalidLegacyStrategyToDefault() {
+        mPref.edit()
+                .putString("skin-name", "night.skin")
+                .putString("skin-strategy", "assets")
+                .commit();
+
+        assertTrue(getPreference().getSkinState().isDefault());
+    }
+
+    @Test
+    public void readsDefaultWithoutRecord() {
+        assertTrue(getPreference().getSkinState().isDefault());
+        assertEquals("", getPreference().getSkinName());
+    }
+
+    @Test
+    public void readsDefaultFromCorruptedRecord() {
+        mPref.edit().putString("skin-state", "corrupted!").commit();
+
+        assertTrue(getPreference().getSkinState().isDefault());
+    }
+
+    @Test
+    public void savedStateSurvivesReload() {
+        SkinState state = new SkinState(new SkinState.Layer[]{
+                new SkinState.Layer("night.skin", SkinCompatManager.SKIN_LOADER_STRATEGY_ASSETS,
+                        "/data/skins/night.skin", 1024L, 2048L, 0x1234L)
+        }, SkinLoaderStrategy.NONE, "");
+        getPreference().setSkinState(state);
+
+        SkinState decoded = SkinState.decode(mPref.getString("skin-state", null));
+
+        assertEquals(1, decoded.getLayerCount());
+        assertEquals("/data/skins/night.skin", decoded.getLayer(0).getSkinPath());
+        assertEquals(0x1234L, decoded.getLayer(0).getChecksum());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void legacyEditorCommitsOnlyFieldsThatWereSet() {
+        SkinPreference preference = getPreference();
+        preference.setSkinName("night.skin")
+                .setSkinStrategy(String.valueOf(SkinCompatManager.SKIN_LOADER_STRATEGY_BUILD_IN))
+                .setAffixesType(SkinLoaderStrategy.SUFFIX)
+                .setAffixesStr("_night")
+                .commitEditor();
+
+        preference.setSkinName("blue.skin").commitEditor();
+
+        SkinState state = preference.getSkinState();
+        assertEquals(1, state.getLayerCount());
+        assertEquals("blue.skin", state.getLayer(0).getSkinName());
+        assertEquals(SkinCompatManager.SKIN_LOADER_STRATEGY_BUILD_IN, state.getLayer(0).getStrategy());
+        assertEquals(SkinLoaderStrategy.SUFFIX, state.getAffixesType());
+        assertEquals("_night", state.getAffixesStr());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void legacyEditorDoesNotReusePreviousPendingValues() {
+        SkinPreference preference = getPreference();
+        preference.setSkinName("night.skin")
+                .setSkinStrategy(String.valueOf(SkinCompatManager.SKIN_LOADER_STRATEGY_ASSETS))
+                .setAffixesStr("_night")
+                .commitEditor();
+        preference.setSkinState(SkinState.DEFAULT);
+
+        preference.setSkinName("blue.skin")
+                .setSkinStrategy(String.valueOf(SkinCompatManager.SKIN_LOADER_STRATEGY_BUILD_IN))
+                .commitEditor();
+
+        SkinState state = preference.getSkinState();
+        assertEquals("blue.skin", state.getLayer(0).getSkinName());
+        assertEquals(SkinLoaderStrategy.NONE, state.getAffixesType());
+        assertEquals("", state.getAffixesStr());
+    }
+
+    private SkinPreference getPreference() {
+        SkinPreference.init(mContext);
+        return SkinPreference.getInstance(mContext);
+    }
+}
@@ -0,0 +1,111 @@
+package skin.support.utils;
+
+import android.util.Base64;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import skin.base.BuildConfig;
+import skin.support.SkinCompatManager;
+import skin.support.SkinCompatManager.SkinLoaderStrategy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class SkinStateTest {
+
+    @Test
+    public void encodeDecodeRoundTrip() {
+        SkinState state = new SkinState(new SkinState.Layer[]{
+                new SkinState.Layer("night.skin", SkinCompatManager.SKIN_LOADER_STRATEGY_ASSETS,
+                        "/data/skins/night.skin", 4096L, 1500000000000L, 0xcafebabeL),
+                new SkinState.Layer("夜间", SkinCompatManager.SKIN_LOADER_STRATEGY_BUILD_IN, null, 0, 0, 0)
+        }, SkinLoaderStrategy.SUFFIX, "_night");
+
+        SkinState decoded = SkinState.decode(state.encode());
+
+        assertNotNull(decoded);
+        assertEquals(2, decoded.getLayerCount());
+        assertLayerEquals(state.getLayer(0), decoded.getLayer(0));
+        assertLayerEquals(state.getLayer(1), decoded.getLayer(1));
+        assertEquals("", decoded.getLayer(1).getSkinPath());
+        assertEquals(SkinLoaderStrategy.SUFFIX, decoded.getAffixesType());
+        assertEquals("_night", decoded.getAffixesStr());
+        assertFalse(decoded.isDefault());
+    }
+
+    @Test
+    public void defaultStateRoundTrip() {
+        SkinState decoded = SkinState.decode(SkinState.DEFAULT.encode());
+
+        assertNotNull(decoded);
+        assertTrue(decoded.isDefault());
+        assertEquals(SkinLoaderStrategy.NONE, decoded.getAffixesType());
+        assertEquals("", decoded.getAffixesStr());
+    }
+
+    @Test
+    public void decodeRejectsInvalidBase64() {
+        assertNull(SkinState.decode("not base64!"));
+    }
+
+    @Test
+    public void decodeRejectsUnknownVersion() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream os = new DataOutputStream(bos);
+        os.writeByte(2);
+        os.writeInt(0);
+        os.writeInt(SkinLoaderStrategy.NONE);
+        os.writeUTF("");
+
+        assertNull(SkinState.decode(Base64.encodeToString(bos.toByteArray(), Base64.NO_WRAP)));
+    }
+
+    @Test
+    public void decodeRejectsTruncatedRecord() {
+        SkinState state = new SkinState(new SkinState.Layer[]{
+                new SkinState.Layer("night.skin", SkinCompatManager.SKIN_LOADER_STRATEGY_ASSETS, "", 0, 0, 0)
+        }, SkinLoaderStrategy.NONE, "");
+        byte[] bytes = Base64.decode(state.encode(), Base64.NO_WRAP);
+        byte[] truncated = new byte[bytes.length - 3];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+
+        assertNull(SkinState.decode(Base64.encodeToString(truncated, Base64.NO_WRAP)));
+    }
+
+    @Test
+    public void decodeRejectsInvalidLayerCount() throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        DataOutputStream os = new DataOutputStream(bos);
+        os.writeByte(1);
+        os.writeInt(-1);
+
+        assertNull(SkinState.decode(Base64.encodeToString(bos.toByteArray(), Base64.NO_WRAP)));
+
+        bos.reset();
+        os.writeByte(1);
+        os.writeInt(Integer.MAX_VALUE);
+
+        assertNull(SkinState.decode(Base64.encodeToString(bos.toByteArray(), Base64.NO_WRAP)));
+    }
+
+    private static void assertLayerEquals(SkinState.Layer expected, SkinState.Layer actual) {
+        assertEquals(expected.getSkinName(), actual.getSkinName());
+        assertEquals(expected.getStrategy(), actual.getStrategy());
+        assertEquals(expected.getSkinPath(), actual.getSkinPath());
+        assertEquals(expected.getLength(), actual.getLength());
+        assertEquals(expected.getLastModified(), actual.getLastModified());
+        assertEquals(expected.getChecksum(), actual.getChecksum());
+    }
+}